@@ -1,9 +1,7 @@
-import java.util.Stack;
-
 public class BFS {
     private static final int INFINITY = Integer.MAX_VALUE;
     private static final int NO_PARENT = -1;
-    private Digraph G;
+    private GraphView G;
     private int parent[];
     private int dist[];
     private boolean marked[];
@@ -18,8 +16,19 @@ public class BFS {
      * @throws IllegalArgumentException unless {@code 0 <= s < V}
      */
     public BFS(Digraph G, int source) {
+    	this((GraphView) G, source);
+    }
+    
+    /**
+     * Computes the shortest path between the source vertex {@code source}
+     * and every other vertex of {@code G}, which is read but not copied.
+     * @param G the graph
+     * @param source the source vertex
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     */
+    public BFS(GraphView G, int source) {
     	if(source<0 || source>G.V()-1) throw new IllegalArgumentException("source must be a vertex of the graph.");
-    	this.G = new Digraph(G);
+    	this.G = G;
     	this.source = source;
     	this.dist = new int[G.V()];
     	this.parent = new int[G.V()];
@@ -50,30 +59,51 @@ public class BFS {
     }
     
 
+    /**
+     * Level-synchronous BFS: the vertices at distance d are kept in the
+     * current frontier, and their unmarked neighbors form the next frontier
+     * at distance d+1.
+     */
     private void bfs(){
-    	Stack<Integer> stack = new Stack<Integer>();
     	for(int i=0;i<G.V();++i){
     		dist[i] = INFINITY;
     		parent[i] = NO_PARENT;
     		marked[i] = false;
     	}
     	
+    	int[] current = new int[G.V()] , next = new int[G.V()];
+    	int currentSize = 0 , nextSize , level = 0;
+    	marked[source] = true;
     	dist[source] = 0;
-    	stack.push(source);
-    	int currentVertex;
-    	while(!stack.empty()){
-    		currentVertex = stack.pop();
-    		for(int neighbor: G.adj(currentVertex)){
-    			if(!marked[neighbor]){
-    				marked[neighbor] = true;
-    				dist[neighbor] = dist[currentVertex]+1; 
-    				parent[neighbor] = currentVertex; 
-    				stack.push(neighbor);
+    	current[currentSize++] = source;
+    	while(currentSize>0){
+    		level++;
+    		nextSize = 0;
+    		for(int k=0;k<currentSize;++k){
+    			int currentVertex = current[k];
+    			int degree = G.degree(currentVertex);
+    			for(int i=0;i<degree;++i){
+    				int neighbor = G.neighbor(currentVertex, i);
+    				if(!marked[neighbor]){
+    					marked[neighbor] = true;
+    					dist[neighbor] = level; 
+    					parent[neighbor] = currentVertex; 
+    					next[nextSize++] = neighbor;
+    				}
     			}
     		}
+    		int[] temp = current;
+    		current = next;
+    		next = temp;
+    		currentSize = nextSize;
     	}
     }
     
+    private void validateVertex(int i){
+    	if(i < 0) throw new IllegalArgumentException("Vertex: " + i + " is negative.");
+    	if(i > G.V()-1) throw new IllegalArgumentException("Vertex: " + i + " is larger than |V|=" + G.V() +".");
+    }
+    
     public int dist(int target){
     	return dist[target];
     }
@@ -95,14 +125,16 @@ public class BFS {
     }
     
     public int getDist(int u){
-    	this.G.validateVertex(u);
+    	validateVertex(u);
     	return this.dist[u];
     }
     
     public static boolean isBipartite(Graph G){
     	BFS b = new BFS((Digraph) G);
     	for(int u=0;u<G.V();++u){
-    		for(int v: b.G.adj(u)){
+    		int degree = G.degree(u);
+    		for(int i=0;i<degree;++i){
+    			int v = G.neighbor(u, i);
     			if((b.getDist(u)-b.getDist(v))%2==0) return false;
     		}
     	}
@@ -0,0 +1,263 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable directed graph in compressed sparse row form.
+ * The out-neighbors of v are {@code targets[offsets[v]..offsets[v+1])} and the
+ * in-neighbors are kept the same way (compressed sparse column), so both
+ * directions cost two {@code int}s per vertex and one per edge, with no
+ * per-edge objects.
+ * <p>
+ * Neighbors keep the order of the source: the adjacency order of a
+ * {@link Digraph}, or the order of the edge arrays.
+ */
+public class CSRDigraph implements GraphView {
+	private final int V;
+	private final int E;
+	private final int[] outOffsets;
+	private final int[] targets;
+	private final int[] inOffsets;
+	private final int[] sources;
+
+	/**
+	 * Initializes a CSR copy of {@code G}. For a {@link Graph} every edge
+	 * appears in both directions.
+	 * @param G the graph to copy
+	 */
+	public CSRDigraph(Digraph G){
+		this.V = G.V();
+		this.outOffsets = new int[V+1];
+		long edges = 0;
+		for(int v=0;v<V;++v){
+			edges += G.outDegree(v);
+			if(edges>Integer.MAX_VALUE) throw new IllegalArgumentException("Too many edges");
+			outOffsets[v+1] = (int) edges;
+		}
+		this.E = (int) edges;
+		this.targets = new int[E];
+		for(int v=0;v<V;++v){
+			int k = outOffsets[v];
+			for(int w : G.adj(v)){
+				targets[k++] = w;
+			}
+		}
+		this.inOffsets = new int[V+1];
+		this.sources = new int[E];
+		transpose(V,outOffsets,targets,inOffsets,sources);
+	}
+
+	/**
+	 * Initializes a graph from a bulk edge array, edge k is from[k]->to[k].
+	 * Construction is two counting sorts, O(V+E).
+	 * @param V number of vertices
+	 * @param from tails of the edges
+	 * @param to heads of the edges
+	 * @throws IllegalArgumentException if the arrays differ in length or hold an invalid vertex
+	 */
+	public CSRDigraph(int V , int[] from , int[] to){
+		if (V <= 0) throw new IllegalArgumentException("Number of vertices must be positive");
+		if(from.length!=to.length) throw new IllegalArgumentException("Edge arrays must have the same length");
+		this.V = V;
+		this.E = from.length;
+		this.outOffsets = new int[V+1];
+		for(int k=0;k<E;++k){
+			validateVertex(from[k]);
+			validateVertex(to[k]);
+			outOffsets[from[k]+1]++;
+		}
+		for(int v=0;v<V;++v) outOffsets[v+1] += outOffsets[v];
+		this.targets = new int[E];
+		int[] next = new int[V];
+		System.arraycopy(outOffsets, 0, next, 0, V);
+		for(int k=0;k<E;++k){
+			targets[next[from[k]]++] = to[k];
+		}
+		this.inOffsets = new int[V+1];
+		this.sources = new int[E];
+		transpose(V,outOffsets,targets,inOffsets,sources);
+	}
+
+	private CSRDigraph(int V , int[] outOffsets , int[] targets , int[] inOffsets , int[] sources){
+		this.V = V;
+		this.E = targets.length;
+		this.outOffsets = outOffsets;
+		this.targets = targets;
+		this.inOffsets = inOffsets;
+		this.sources = sources;
+	}
+
+	/**
+	 * Builds the transposed adjacency by a counting sort over the heads.
+	 */
+	private static void transpose(int V , int[] offsets , int[] adj , int[] tOffsets , int[] tAdj){
+		for(int k=0;k<adj.length;++k) tOffsets[adj[k]+1]++;
+		for(int v=0;v<V;++v) tOffsets[v+1] += tOffsets[v];
+		int[] next = new int[V];
+		System.arraycopy(tOffsets, 0, next, 0, V);
+		for(int v=0;v<V;++v){
+			for(int k=offsets[v];k<offsets[v+1];++k){
+				tAdj[next[adj[k]]++] = v;
+			}
+		}
+	}
+
+	/**
+	 * Verify that given vertex is valid.
+	 * @param i vertex index.
+	 * @throws IllegalArgumentException unless {@code 0 <= v < V}
+	 */
+	public void validateVertex(int i){
+		if(i < 0) throw new IllegalArgumentException("Vertex: " + i + " is negative.");
+		if(i > V-1) throw new IllegalArgumentException("Vertex: " + i + " is larger than |V|=" + this.V +".");
+	}
+
+	public int V(){
+		return V;
+	}
+
+	public int E(){
+		return E;
+	}
+
+	public int outDegree(int v){
+		validateVertex(v);
+		return outOffsets[v+1]-outOffsets[v];
+	}
+
+	public int inDegree(int v){
+		validateVertex(v);
+		return inOffsets[v+1]-inOffsets[v];
+	}
+
+	/**
+	 * @return i-th out-neighbor of v
+	 */
+	public int outNeighbor(int v , int i){
+		if(i<0 || i>=outDegree(v)) throw new IllegalArgumentException("Neighbor index " + i + " out of range");
+		return targets[outOffsets[v]+i];
+	}
+
+	/**
+	 * @return i-th in-neighbor of v
+	 */
+	public int inNeighbor(int v , int i){
+		if(i<0 || i>=inDegree(v)) throw new IllegalArgumentException("Neighbor index " + i + " out of range");
+		return sources[inOffsets[v]+i];
+	}
+
+	/**
+	 * Same as {@link #outDegree(int)}.
+	 */
+	public int degree(int v){
+		return outDegree(v);
+	}
+
+	/**
+	 * Same as {@link #outNeighbor(int, int)}.
+	 */
+	public int neighbor(int v , int i){
+		return outNeighbor(v,i);
+	}
+
+	public void forEachNeighbor(int v , IntConsumer action){
+		validateVertex(v);
+		for(int k=outOffsets[v];k<outOffsets[v+1];++k) action.accept(targets[k]);
+	}
+
+	/**
+	 * @return iterator over the out-neighbors of {@code v}, without boxing
+	 */
+	public PrimitiveIterator.OfInt adj(int v){
+		validateVertex(v);
+		return new RangeIterator(targets,outOffsets[v],outOffsets[v+1]);
+	}
+
+	/**
+	 * @return iterator over the in-neighbors of {@code v}, without boxing
+	 */
+	public PrimitiveIterator.OfInt backwardAdj(int v){
+		validateVertex(v);
+		return new RangeIterator(sources,inOffsets[v],inOffsets[v+1]);
+	}
+
+	/*
+	 * Raw arrays for traversal kernels, which must not modify them.
+	 */
+	int[] outOffsets(){
+		return outOffsets;
+	}
+
+	int[] targets(){
+		return targets;
+	}
+
+	int[] inOffsets(){
+		return inOffsets;
+	}
+
+	int[] sources(){
+		return sources;
+	}
+
+	/**
+	 * @return the reverse graph, sharing the storage of this graph. O(1).
+	 */
+	public CSRDigraph reverse(){
+		return new CSRDigraph(V,inOffsets,sources,outOffsets,targets);
+	}
+
+	private static final class RangeIterator implements PrimitiveIterator.OfInt {
+		private final int[] a;
+		private int position;
+		private final int end;
+
+		RangeIterator(int[] a , int from , int to){
+			this.a = a;
+			this.position = from;
+			this.end = to;
+		}
+
+		public boolean hasNext(){
+			return position<end;
+		}
+
+		public int nextInt(){
+			if(position>=end) throw new NoSuchElementException();
+			return a[position++];
+		}
+	}
+
+	/**
+	 * Returns a string representation of the graph.
+	 *
+	 * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
+	 *         followed by the <em>V</em> adjacency lists
+	 */
+	public String toString(){
+		String NEWLINE = System.getProperty("line.separator");
+		StringBuilder s = new StringBuilder();
+		s.append(V + " vertices, " + E + " edges " + NEWLINE);
+		for(int v=0;v<V;++v){
+			s.append(String.format("%d: ", v));
+			for(int k=outOffsets[v];k<outOffsets[v+1];++k){
+				s.append(String.format("%d ", targets[k]));
+			}
+			s.append(NEWLINE);
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Unit tests the {@code CSRDigraph} data type.
+	 *
+	 * @param args the command-line arguments
+	 */
+	public static void main(String[] args){
+		Digraph G = GraphGenerator.randomDirectedGraph(10, 0.2);
+		CSRDigraph csr = new CSRDigraph(G);
+		System.out.print(G.toString());
+		System.out.print(csr.toString());
+		System.out.print(csr.reverse().toString());
+	}
+}
@@ -1,76 +1,176 @@
-import java.util.LinkedList;
-
+/**
+ * Strongly connected components with an iterative version of Tarjan's algorithm.
+ * A single DFS over the adjacency finds every component; the recursion is
+ * replaced by an int[] call stack with a per-vertex neighbor cursor, and the
+ * component stack is an int[] as well, so deep graphs need no thread stack
+ * and the graph is never copied.
+ * <p>
+ * Components are numbered in topological order of the condensation: every
+ * edge between components goes from a lower id to a higher one.
+ */
 public class ConnectedComponents {
-	private Digraph G;
+	private static final int UNVISITED = -1;
+	private final GraphView G;
 	private Digraph sccGraph;
 
 	private int[] connectedComponent;
-	private int[] connectedComponentLabels;
-	private LinkedList<Integer>[] connectedComponentList;
-	
+	// vertices of component c are componentVertices[componentOffsets[c]..componentOffsets[c+1])
+	private int[] componentOffsets;
+	private int[] componentVertices;
+
 	private int numConnectedComponent;
-	
+
 	public ConnectedComponents(Digraph G){
+		this((GraphView) G);
+	}
+
+	/**
+	 * Computes the components of {@code G}, which is read but not copied.
+	 */
+	public ConnectedComponents(GraphView G){
 		this.G = G;
 		this.connectedComponent = new int[G.V()];
 		findConnectedComponents();
+		groupVertices();
+		buildCondensation();
 	}
-	
-	private void findConnectedComponents(){
-		DFS dfs = new DFS(G);
-		System.out.println(dfs.toString());
-
-		Digraph reverse = G.reverse();
-		int[] labeling = new int[G.V()];
 
-		for(int i=0;i<G.V();++i){
-			labeling[dfs.fallbackOrder(i)] = G.V()-1-i;
-		}
-		Permutation p = new Permutation(labeling);
-
-		System.out.println(reverse.toString());
-
-		reverse = reverse.relabel(p.getPermutation());
-		DFS dfsReverse = new DFS(reverse);
-		
-		this.numConnectedComponent = dfsReverse.numTreesInDFSForest();
-		this.connectedComponentLabels = new int[this.numConnectedComponent];
-		int index=0;
-		for(int i:dfsReverse.getSources()){
-			this.connectedComponentLabels[index] = i;
-			index++;
-		}
-		
-		LinkedList<Integer>[] list = dfsReverse.vertexByRoot();
-		this.connectedComponentList = new LinkedList[numConnectedComponent];
-		for(int i=0 ; i<numConnectedComponent;++i){
-			this.connectedComponentList[i] = new LinkedList<Integer>();
-			for(int u: list[i]){
-				this.connectedComponentList[i].add(p.inverse().getIndex(u));
+	private void findConnectedComponents(){
+		int n = G.V();
+		int[] index = new int[n] , low = new int[n] , cursor = new int[n];
+		int[] callStack = new int[n] , sccStack = new int[n];
+		int counter = 0 , sccTop = 0 , found = 0;
+		java.util.Arrays.fill(index, UNVISITED);
+		java.util.Arrays.fill(connectedComponent, UNVISITED);
+		for(int root=0;root<n;++root){
+			if(index[root]!=UNVISITED) continue;
+			int top = 0;
+			index[root] = low[root] = counter++;
+			sccStack[sccTop++] = root;
+			callStack[top++] = root;
+			while(top>0){
+				int u = callStack[top-1];
+				if(cursor[u]<G.degree(u)){
+					int w = G.neighbor(u, cursor[u]++);
+					if(index[w]==UNVISITED){
+						index[w] = low[w] = counter++;
+						sccStack[sccTop++] = w;
+						callStack[top++] = w;
+					}
+					else if(connectedComponent[w]==UNVISITED){
+						// w is still on the component stack
+						low[u] = Math.min(low[u], index[w]);
+					}
+					continue;
+				}
+				top--;
+				if(low[u]==index[u]){
+					int w;
+					do{
+						w = sccStack[--sccTop];
+						connectedComponent[w] = found;
+					}
+					while(w!=u);
+					found++;
+				}
+				if(top>0){
+					int parent = callStack[top-1];
+					low[parent] = Math.min(low[parent], low[u]);
+				}
 			}
 		}
-		
-		int[] connectedComponentWithOldLabels = new int[G.V()];
-		System.arraycopy(dfsReverse.getOriginalSource(), 0, connectedComponentWithOldLabels, 0, G.V());
-		for(int i=0 ; i<G.V();++i){
-			this.connectedComponent[i] = connectedComponentWithOldLabels[p.getIndex(i)];
+		// Tarjan completes the components in reverse topological order
+		this.numConnectedComponent = found;
+		for(int v=0;v<n;++v){
+			connectedComponent[v] = found-1-connectedComponent[v];
 		}
-		
-		this.sccGraph = new Digraph(this.numConnectedComponent);
-		for(int u=0;u<G.V();++u){
-			for(int v: G.adj(u)){
-				if(connectedComponent[u]!=connectedComponent[v]){
-					this.sccGraph.addEdge(connectedComponent[u], connectedComponent[v]);
+	}
+
+	/**
+	 * Counting sort of the vertices by component.
+	 */
+	private void groupVertices(){
+		int n = G.V();
+		this.componentOffsets = new int[numConnectedComponent+1];
+		this.componentVertices = new int[n];
+		for(int v=0;v<n;++v) componentOffsets[connectedComponent[v]+1]++;
+		for(int c=0;c<numConnectedComponent;++c) componentOffsets[c+1] += componentOffsets[c];
+		int[] next = new int[numConnectedComponent];
+		System.arraycopy(componentOffsets, 0, next, 0, numConnectedComponent);
+		for(int v=0;v<n;++v){
+			componentVertices[next[connectedComponent[v]]++] = v;
+		}
+	}
+
+	/**
+	 * Builds the condensation DAG with one edge per pair of adjacent components.
+	 */
+	private void buildCondensation(){
+		this.sccGraph = new Digraph(numConnectedComponent);
+		int[] lastSource = new int[numConnectedComponent];
+		java.util.Arrays.fill(lastSource, UNVISITED);
+		for(int c=0;c<numConnectedComponent;++c){
+			for(int k=componentOffsets[c];k<componentOffsets[c+1];++k){
+				int u = componentVertices[k];
+				int degree = G.degree(u);
+				for(int i=0;i<degree;++i){
+					int d = connectedComponent[G.neighbor(u, i)];
+					if(d!=c && lastSource[d]!=c){
+						lastSource[d] = c;
+						this.sccGraph.addEdge(c, d);
+					}
 				}
 			}
 		}
 	}
-	
+
+	private void validateVertex(int i){
+		if(i < 0) throw new IllegalArgumentException("Vertex: " + i + " is negative.");
+		if(i > G.V()-1) throw new IllegalArgumentException("Vertex: " + i + " is larger than |V|=" + G.V() +".");
+	}
+
 	public int getConnectedComponents(int u){
-		this.G.validateVertex(u);
+		validateVertex(u);
 		return connectedComponent[u];
 	}
-	
+
+	/**
+	 * @return number of strongly connected components
+	 */
+	public int count(){
+		return numConnectedComponent;
+	}
+
+	/**
+	 * @return array holding the component id of every vertex
+	 */
+	public int[] components(){
+		return connectedComponent.clone();
+	}
+
+	/**
+	 * @param c component id
+	 * @return the vertices of component {@code c}, in increasing order
+	 */
+	public int[] vertices(int c){
+		if(c<0 || c>=numConnectedComponent) throw new IllegalArgumentException("Component " + c + " out of range");
+		return java.util.Arrays.copyOfRange(componentVertices, componentOffsets[c], componentOffsets[c+1]);
+	}
+
+	public boolean stronglyConnected(int u, int v){
+		validateVertex(u);
+		validateVertex(v);
+		return connectedComponent[u]==connectedComponent[v];
+	}
+
+	/**
+	 * @return the condensation: a DAG with a vertex per component and an edge c->d
+	 *         if some edge of the graph goes from component c to component d
+	 */
+	public Digraph condensation(){
+		return new Digraph(sccGraph);
+	}
+
 	public static void main(String[] args){
 		   Digraph G = new Digraph(10);
 		   G.addEdge(0, 2);
@@ -90,15 +190,15 @@ public class ConnectedComponents {
 		   System.out.print(G.toString());
 		   ConnectedComponents scc = new ConnectedComponents(G);
 		   System.out.print(scc.sccGraph.toString());
-		   for(LinkedList<Integer> l : scc.connectedComponentList){
-			   System.out.println(l.toString());
+		   for(int c=0;c<scc.count();++c){
+			   System.out.println(java.util.Arrays.toString(scc.vertices(c)));
 		   }
 		   for(int i=0;i<G.V();++i){
 			   System.out.println("Vertex: "+ i + "  CC:" + scc.getConnectedComponents(i));
 		   }
 	}
-	
-	
-	
-	
+
+
+
+
 }
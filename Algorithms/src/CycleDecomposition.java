@@ -0,0 +1,181 @@
+/**
+ * Flat cycle decomposition of a permutation.
+ * The elements of all cycles are stored in one {@code int[]} in cycle order,
+ * cycle c occupying {@code elements[offsets[c]..offsets[c+1])} and starting at
+ * its smallest element, so that p maps each element to the next one in its cycle.
+ * The number of cycles of every length (the cycle type) is kept alongside.
+ * <p>
+ * A decomposition can be reused for permutations of any size with
+ * {@link #decompose(int[])}, which only allocates when the buffers must grow.
+ */
+public class CycleDecomposition {
+	private int[] elements;
+	private int[] offsets;
+	private int[] cycleType;
+	private long[] marked;
+	private int n , cycles;
+
+	/**
+	 * Initializes an empty decomposition with buffers for permutations of the given size.
+	 */
+	public CycleDecomposition(int capacity){
+		this.elements = new int[capacity];
+		this.offsets = new int[capacity+1];
+		this.cycleType = new int[capacity+1];
+		this.marked = new long[(capacity+63)>>>6];
+	}
+
+	public CycleDecomposition(Permutation p){
+		this(p.size());
+		decompose(p.getPermutation());
+	}
+
+	/**
+	 * Replaces the decomposition by the one of {@code permutation}. O(n).
+	 * @param permutation array holding a permutation of 0..n-1
+	 * @return this decomposition
+	 */
+	public CycleDecomposition decompose(int[] permutation){
+		int size = permutation.length;
+		if(size>elements.length){
+			elements = new int[size];
+			offsets = new int[size+1];
+			cycleType = new int[size+1];
+			marked = new long[(size+63)>>>6];
+		}
+		java.util.Arrays.fill(cycleType, 0, n+1, 0);
+		java.util.Arrays.fill(marked, 0, (size+63)>>>6, 0L);
+		this.n = size;
+		// the lengths are written to offsets and turned into offsets in place
+		cycles = cycleLengths(permutation, marked, elements, offsets);
+		int count = 0;
+		for(int c=0;c<cycles;++c){
+			int length = offsets[c];
+			cycleType[length]++;
+			offsets[c] = count;
+			count += length;
+		}
+		offsets[cycles] = count;
+		return this;
+	}
+
+	/**
+	 * Walks the cycles of {@code permutation} in order of their smallest element,
+	 * marking the visited elements in a bitset. O(n).
+	 * @param permutation array holding a permutation of 0..n-1
+	 * @param marked cleared bitset of at least n bits
+	 * @param elements receives the elements in cycle order, or null
+	 * @param lengths receives the length of each cycle, or null
+	 * @return number of cycles
+	 */
+	static int cycleLengths(int[] permutation , long[] marked , int[] elements , int[] lengths){
+		int n = permutation.length , count = 0 , cycles = 0;
+		for(int i=0;i<n;++i){
+			if((marked[i>>>6]&(1L<<i))!=0) continue;
+			int start = count;
+			for(int current=i;(marked[current>>>6]&(1L<<current))==0;current=permutation[current]){
+				marked[current>>>6] |= 1L<<current;
+				if(elements!=null) elements[count] = current;
+				count++;
+			}
+			if(lengths!=null) lengths[cycles] = count-start;
+			cycles++;
+		}
+		return cycles;
+	}
+
+	/**
+	 * @return size of the decomposed permutation
+	 */
+	public int size(){
+		return n;
+	}
+
+	public int cycleCount(){
+		return cycles;
+	}
+
+	public int cycleLength(int c){
+		validateCycle(c);
+		return offsets[c+1]-offsets[c];
+	}
+
+	/**
+	 * @return i-th element of cycle c, the 0-th element is the smallest one
+	 */
+	public int get(int c , int i){
+		validateCycle(c);
+		if(i<0 || i>=offsets[c+1]-offsets[c]) throw new IllegalArgumentException("index " + i + " out of cycle " + c);
+		return elements[offsets[c]+i];
+	}
+
+	/**
+	 * @return number of cycles of the given length
+	 */
+	public int cycleCountOfLength(int length){
+		return (length<1 || length>n?0:cycleType[length]);
+	}
+
+	private void validateCycle(int c){
+		if(c<0 || c>=cycles) throw new IllegalArgumentException("cycle " + c + " out of range");
+	}
+
+	/**
+	 * @return copy of the elements in cycle order
+	 */
+	public int[] elements(){
+		return java.util.Arrays.copyOf(elements, n);
+	}
+
+	/**
+	 * @return copy of the cycle offsets, of length {@code cycleCount()+1}
+	 */
+	public int[] offsets(){
+		return java.util.Arrays.copyOf(offsets, cycles+1);
+	}
+
+	/**
+	 * @return the order of the permutation, the lcm of its cycle lengths
+	 */
+	public int order(){
+		int ord = 1;
+		for(int length=2;length<=n;++length){
+			if(cycleType[length]!=0) ord = EucleadAlgorithm.lcm(ord, length);
+		}
+		return ord;
+	}
+
+	/**
+	 * @return 0 for an even permutation and 1 for an odd one
+	 */
+	public int sign(){
+		return (n-cycles)&1;
+	}
+
+	/**
+	 * Permutations are conjugate iff they have the same cycle type.
+	 */
+	public boolean isConjugate(CycleDecomposition other){
+		if(other.n!=n) throw new IllegalArgumentException("Size of permutations must match");
+		if(other.cycles!=cycles) return false;
+		for(int length=1;length<=n;++length){
+			if(cycleType[length]!=other.cycleType[length]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the decomposed permutation into {@code out}.
+	 * @param out array of length {@code size()}
+	 * @return out
+	 */
+	public int[] toPermutation(int[] out){
+		if(out.length!=n) throw new IllegalArgumentException("array of size " + out.length + " does not match size " + n);
+		for(int c=0;c<cycles;++c){
+			int start = offsets[c] , end = offsets[c+1];
+			for(int k=start;k<end-1;++k) out[elements[k]] = elements[k+1];
+			out[elements[end-1]] = elements[start];
+		}
+		return out;
+	}
+}
@@ -7,18 +7,23 @@ import javax.swing.text.html.HTMLDocument.Iterator;
 public class DFS {
     private static final int INFINITY = Integer.MAX_VALUE;
     private static final int NO_PARENT = -1;
-    private Digraph G;
+    private GraphView G;
     private int source;
     
     private int parent[];
     private boolean marked[];    
     
     private int detectionTime[];
-    private ArrayList<Integer> detectionOrder;
+    private int detectionOrder[];
+    private int detected;
     
     private int fallbackTime[];
-    private ArrayList<Integer> fallbackOrder;
+    private int fallbackOrder[];
+    private int fallen;
     
+    // explicit DFS stack and the next neighbor index of every vertex
+    private int stack[];
+    private int cursor[];
 
     
     private int rootInDFSTree[];
@@ -29,16 +34,26 @@ public class DFS {
     public enum edgeType {BACK_EDGE, FRONT_EDGE,TREE_EDGE,CUT_EDGE,NO_EDGE};
     
     public DFS(Digraph G, int source){
-    	this.G = new Digraph(G);
-    	G.validateVertex(source);
+    	this((GraphView) G, source);
+    }
+    
+    /**
+     * Runs the DFS directly on {@code G}, which is read but not copied,
+     * so it must not change while this object is in use.
+     */
+    public DFS(GraphView G, int source){
+    	this.G = G;
+    	validateVertex(source);
     	this.source = source;
     	this.detectionTime = new int[G.V()];
-    	this.detectionOrder = new ArrayList<Integer>(G.V());
+    	this.detectionOrder = new int[G.V()];
 
     	this.parent = new int[G.V()];
 
     	this.fallbackTime = new int[G.V()];
-    	this.fallbackOrder = new ArrayList<Integer>(G.V());
+    	this.fallbackOrder = new int[G.V()];
+    	this.stack = new int[G.V()];
+    	this.cursor = new int[G.V()];
     	
     	this.marked = new boolean[G.V()];
     	this.sources = new ArrayList<Integer>();
@@ -74,31 +89,59 @@ public class DFS {
     	this(G, 0);
     }
     
+    public DFS(GraphView G){
+    	this(G, 0);
+    }
+    
+    private void validateVertex(int i){
+    	if(i < 0) throw new IllegalArgumentException("Vertex: " + i + " is negative.");
+    	if(i > G.V()-1) throw new IllegalArgumentException("Vertex: " + i + " is larger than |V|=" + G.V() +".");
+    }
+    
     private void clock(){
     	clock++;
     }
     
+    /**
+     * Non-recursive DFS: the top of the stack resumes its adjacency list at
+     * cursor[top], so vertices are detected and fall back in the same order
+     * as in the recursive formulation.
+     */
     private void dfs(int source, int originalSource){
-    	marked[source] = true;
-		detectionTime[source] = clock;
-    	this.detectionOrder.add(source);
-		this.rootInDFSTree[source] = originalSource; 
-		clock();
-    	for(int neighbor: G.adj(source)){
-    		if(!marked[neighbor]){
-    			parent[neighbor] = source;
-    			dfs(neighbor,originalSource);
+    	int top = 0;
+    	detect(source, originalSource);
+    	stack[top++] = source;
+    	while(top>0){
+    		int u = stack[top-1];
+    		if(cursor[u]<G.degree(u)){
+    			int neighbor = G.neighbor(u, cursor[u]++);
+    			if(!marked[neighbor]){
+    				parent[neighbor] = u;
+    				detect(neighbor, originalSource);
+    				stack[top++] = neighbor;
+    			}
+    		}
+    		else{
+    			top--;
+    			fallbackTime[u] = clock;
+    			fallbackOrder[fallen++] = u;
+    			clock();
     		}
     	}
-    	fallbackTime[source] = clock;
-    	this.fallbackOrder.add(source); 
-		clock();
+    }
+    
+    private void detect(int u, int originalSource){
+    	marked[u] = true;
+    	detectionTime[u] = clock;
+    	detectionOrder[detected++] = u;
+    	this.rootInDFSTree[u] = originalSource;
+    	clock();
     }
     
     
     private edgeType getEdgeType(int u,int v){
-    	G.validateVertex(u);
-    	G.validateVertex(v);
+    	validateVertex(u);
+    	validateVertex(v);
     	if((detectionTime[u]<detectionTime[v]) && (detectionTime[v]<fallbackTime[v]) && (fallbackTime[v]<fallbackTime[u])){
     		if(parent[v]==u){
     	    	return edgeType.TREE_EDGE;
@@ -119,7 +162,8 @@ public class DFS {
     
     public boolean hasCycle(){
     	for(int u=0;u<G.V();++u){
-    		for(int v:G.adj(u)){
+    		for(int i=0;i<G.degree(u);++i){
+    			int v = G.neighbor(u, i);
     			if(rootInDFSTree[u] != rootInDFSTree[v]){
     				continue;
     			}
@@ -132,7 +176,8 @@ public class DFS {
     public boolean hasReachableCycle(){
     	for(int u=0;u<G.V();++u){
     		if(rootInDFSTree[u]!= this.source) continue;
-    		for(int v:G.adj(u)){
+    		for(int i=0;i<G.degree(u);++i){
+    			int v = G.neighbor(u, i);
     			if(rootInDFSTree[u] != rootInDFSTree[v]){
     				continue;
     			}
@@ -146,7 +191,8 @@ public class DFS {
     	Stack<Integer> cycle = new Stack<Integer>();
     	int uStart=-1 ,uEnd=-1;
     	for(int u=0;u<G.V();++u){
-    		for(int v:G.adj(u)){
+    		for(int i=0;i<G.degree(u);++i){
+    			int v = G.neighbor(u, i);
     			if(rootInDFSTree[u] != rootInDFSTree[v]){
     				continue;
     			}
@@ -173,7 +219,7 @@ public class DFS {
     
     
     public boolean isConnected(int u){
-    	G.validateVertex(u);
+    	validateVertex(u);
     	return fallbackTime[source]>detectionTime[u];
     }
     
@@ -272,7 +318,8 @@ public class DFS {
     
     
     public int fallbackOrder(int index){
-    	return this.fallbackOrder.get(index);
+    	if(index<0 || index>=fallen) throw new IllegalArgumentException("Index " + index + " out of range");
+    	return this.fallbackOrder[index];
     }
     
     public String toString(){
@@ -1,13 +1,12 @@
 
-import java.util.LinkedList;
-import java.util.Stack;
+import java.util.function.IntConsumer;
 import java.io.*;
 
-public class Digraph {
+public class Digraph implements GraphView {
     private final int V;
     protected int E;
-    protected LinkedList<Integer>[] adj;
-    private LinkedList<Integer>[] backwardAdj;
+    protected IntList[] adj;
+    private IntList[] backwardAdj;
 
     
     
@@ -15,12 +14,13 @@ public class Digraph {
     private EdgeIndicator edgeIndicator;
     static EdgeIndicator defaultEdgeIndicator;
     private boolean useEdgeIndicator;
+    private EdgeIndex edgeIndex;
     /**
      * Initializes a new graph with {@code V} vertices.
-     * @param V number of vertices in the graph.
+     * @param V number of vertices in the graph, possibly zero.
      */
     public Digraph(int V){
-    	if (V <= 0) throw new IllegalArgumentException("Number of vertices must be positive");
+    	if (V < 0) throw new IllegalArgumentException("Number of vertices must be nonnegative");
     	this.V = V;
     	this.E = 0;
     	this.defaultEdgeIndicator = new EdgeIndicator(){
@@ -34,12 +34,12 @@ public class Digraph {
         this.edgeIndicator = defaultEdgeIndicator;
         this.useEdgeIndicator = false;
         
-    	this.adj = (LinkedList<Integer>[]) new LinkedList[V];
-    	this.backwardAdj = (LinkedList<Integer>[]) new LinkedList[V];
+    	this.adj = new IntList[V];
+    	this.backwardAdj = new IntList[V];
     	
     	for(int i=0 ; i<V ; ++i){
-    		this.adj[i] = new LinkedList<Integer>();
-    		this.backwardAdj[i] = new LinkedList<Integer>();
+    		this.adj[i] = new IntList();
+    		this.backwardAdj[i] = new IntList();
     	}
     }
     
@@ -119,6 +119,38 @@ public class Digraph {
         return adj[v];
     }
 
+    /**
+     * @param v the vertex
+     * @return number of vertices adjacent to {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int degree(int v) {
+        validateVertex(v);
+        return adj[v].size();
+    }
+
+    /**
+     * @param v the vertex
+     * @param i index in the adjacency list of {@code v}
+     * @return the i-th vertex adjacent to {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V} and {@code 0 <= i < degree(v)}
+     */
+    public int neighbor(int v, int i) {
+        validateVertex(v);
+        return adj[v].get(i);
+    }
+
+    /**
+     * Applies {@code action} to every vertex adjacent to {@code v}, without boxing.
+     * @param v the vertex
+     * @param action the action
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public void forEachNeighbor(int v, IntConsumer action) {
+        validateVertex(v);
+        adj[v].forEachInt(action);
+    }
+
     /**
      * 
      * Given vertices {@code i},{@code j} add the edge i->j.
@@ -132,7 +164,52 @@ public class Digraph {
     	this.E++;
     	this.adj[i].add(j);
     	this.backwardAdj[j].add(i);    
+    	indexEdge(i, j);
 	}
+
+    /**
+     * Adds the edge i->j to the edge index, if there is one.
+     * Subclasses which override {@code addEdge} must call it for every adjacency entry.
+     */
+    protected void indexEdge(int i, int j){
+    	if(edgeIndex!=null) edgeIndex.add(i, j);
+    }
+
+    /**
+     * Builds an index of the edges so that {@link #edgeExists(int, int)} takes O(1).
+     * The index is kept in sync by {@code addEdge}. A bitset is used for dense
+     * graphs and a hash set for sparse ones.
+     */
+    public void indexEdges(){
+    	indexEdges(EdgeIndex.preferDense(V, adjacencyEntries()));
+    }
+
+    /**
+     * Builds an index of the edges so that {@link #edgeExists(int, int)} takes O(1).
+     * @param dense true for a V*V bitset, false for a hash set of the edges.
+     */
+    public void indexEdges(boolean dense){
+    	int entries = (int) Math.min(adjacencyEntries(), Integer.MAX_VALUE);
+    	this.edgeIndex = new EdgeIndex(V, dense, entries);
+    	for(int u=0;u<V;++u){
+    		for(int k=0;k<adj[u].size();++k){
+    			edgeIndex.add(u, adj[u].get(k));
+    		}
+    	}
+    }
+
+    /**
+     * @return true if {@link #edgeExists(int, int)} is answered by an index.
+     */
+    public boolean hasEdgeIndex(){
+    	return edgeIndex!=null;
+    }
+
+    private long adjacencyEntries(){
+    	long entries = 0;
+    	for(int u=0;u<V;++u) entries += adj[u].size();
+    	return entries;
+    }
     
 
     /**
@@ -144,33 +221,24 @@ public class Digraph {
     	this(G.V());
         this.E = G.E();
         for (int v = 0; v < G.V(); v++) {
-            // reverse so that adjacency list is in same order as original
-            Stack<Integer> reverse = new Stack<Integer>();
-            for (int w : G.adj[v]) {
-                reverse.push(w);
-            }
-            for (int w : reverse) {
-                adj[v].add(w);
-            }
-            reverse.clear();
-            for (int w : G.backwardAdj[v]) {
-                reverse.push(w);
-            }
-            for (int w : reverse) {
-            	backwardAdj[v].add(w);
-            }
+            adj[v] = new IntList(G.adj[v]);
+            backwardAdj[v] = new IntList(G.backwardAdj[v]);
         }
+        if (G.edgeIndex != null) indexEdges(G.edgeIndex.isDense());
     }
     
     /**
      * Reverse the edges.
-     *
+     * An edge index, if there is one, is rebuilt for the reversed edges.
      */
     public Digraph reverse() {
-    	Digraph G = new Digraph(this);
-    	LinkedList<Integer>[] temp = G.adj;
-    	G.adj = G.backwardAdj; 
-    	this.backwardAdj = temp;
+    	Digraph G = new Digraph(V);
+    	G.E = E;
+    	for (int v = 0; v < V; v++) {
+    		G.adj[v] = new IntList(backwardAdj[v]);
+    		G.backwardAdj[v] = new IntList(adj[v]);
+    	}
+    	if (edgeIndex != null) G.indexEdges(edgeIndex.isDense());
     	return G;
     }
     
@@ -204,6 +272,17 @@ public class Digraph {
     	return backwardAdj[i].size();
     }
 
+    /**
+     * 
+     * @param v vertex index
+     * @param i index in the in-adjacency list of {@code v}
+     * @return the i-th vertex u with an edge u->v.
+     */
+    public int inNeighbor(int v, int i){
+    	validateVertex(v);
+    	return backwardAdj[v].get(i);
+    }
+
     /**
      * Check if edge {@code i} - {@code j} exists.
      * Override in case better implementation for specific graphs. 
@@ -220,21 +299,21 @@ public class Digraph {
     
     /**
      * Check if edge {@code i} - {@code j} exists.
-     * Override in case better implementation for specific graphs. 
+     * Takes O(1) after {@link #indexEdges()}, otherwise scans the adjacency of {@code u}.
      * 
-     * @param i vertex index
-     * @return out degree of input vertex {@code i}.  
+     * @param u vertex index
+     * @param v vertex index
+     * @return true if the edge u->v exists.
      */
     public boolean edgeExists(int u, int v){
-    	EdgeIndicator indicator = new EdgeIndicator(){
-    		public boolean edgeIndicator(int u, int v){
-        		for(int j : adj(u)){
-        			if(j==v) return true;
-        		}
-        		return false;
-        	}
-    	};
-    	return indicator.edgeIndicator(u, v);
+    	validateVertex(u);
+    	validateVertex(v);
+    	if(edgeIndex!=null) return edgeIndex.contains(u, v);
+    	IntList neighbors = adj[u];
+    	for(int k=0;k<neighbors.size();++k){
+    		if(neighbors.get(k)==v) return true;
+    	}
+    	return false;
     }
     
     
@@ -0,0 +1,165 @@
+/**
+ * Direction-optimizing breadth first search (Beamer, Asanovic and Patterson).
+ * Small frontiers are expanded top-down along the out-edges. Once the edges
+ * leaving the frontier outnumber a fraction of the edges left to explore, the
+ * search switches to bottom-up steps: every unvisited vertex scans its
+ * in-neighbors and stops at the first one in the frontier. It switches back
+ * when the frontier becomes small again. Frontiers and the visited set are
+ * bitsets of one bit per vertex.
+ * <p>
+ * The distances are the same as those of {@link BFS}; the parents may differ
+ * among vertices of the previous level.
+ */
+public class DirectionOptimizingBFS {
+	private static final int INFINITY = Integer.MAX_VALUE;
+	private static final int NO_PARENT = -1;
+	// Switch to bottom-up when the frontier edges exceed 1/ALPHA of the unexplored edges
+	private static final int ALPHA = 14;
+	// Switch back to top-down when the frontier holds less than 1/BETA of the vertices
+	private static final int BETA = 24;
+	private final GraphView G;
+	private final int source;
+	private final int[] dist;
+	private final int[] parent;
+	private long edgesExamined;
+
+	/**
+	 * Computes the distances from {@code source} to every vertex of {@code G}.
+	 * @param G the graph, its in-neighbors are used by the bottom-up steps
+	 * @param source the source vertex
+	 * @throws IllegalArgumentException unless {@code 0 <= s < V}
+	 */
+	public DirectionOptimizingBFS(GraphView G , int source){
+		if(source<0 || source>G.V()-1) throw new IllegalArgumentException("source must be a vertex of the graph.");
+		this.G = G;
+		this.source = source;
+		this.dist = new int[G.V()];
+		this.parent = new int[G.V()];
+		bfs();
+	}
+
+	private void bfs(){
+		int n = G.V() , words = (n+63)>>>6;
+		long[] frontier = new long[words] , next = new long[words] , visited = new long[words];
+		for(int i=0;i<n;++i){
+			dist[i] = INFINITY;
+			parent[i] = NO_PARENT;
+		}
+		long unexploredEdges = 0;
+		for(int v=0;v<n;++v) unexploredEdges += G.degree(v);
+
+		visited[source>>>6] |= 1L<<source;
+		frontier[source>>>6] |= 1L<<source;
+		dist[source] = 0;
+		long frontierEdges = G.degree(source);
+		int frontierSize = 1 , level = 0;
+		boolean bottomUp = false;
+		while(frontierSize>0){
+			unexploredEdges -= frontierEdges;
+			if(!bottomUp && frontierEdges>unexploredEdges/ALPHA){
+				bottomUp = true;
+			}
+			else if(bottomUp && frontierSize<n/BETA){
+				bottomUp = false;
+			}
+			level++;
+			java.util.Arrays.fill(next, 0L);
+			frontierSize = 0;
+			frontierEdges = 0;
+			if(bottomUp){
+				for(int v=0;v<n;++v){
+					if((visited[v>>>6]&(1L<<v))!=0) continue;
+					int inDegree = G.inDegree(v);
+					for(int i=0;i<inDegree;++i){
+						int u = G.inNeighbor(v, i);
+						edgesExamined++;
+						if((frontier[u>>>6]&(1L<<u))!=0){
+							parent[v] = u;
+							dist[v] = level;
+							next[v>>>6] |= 1L<<v;
+							frontierSize++;
+							frontierEdges += G.degree(v);
+							break;
+						}
+					}
+				}
+				for(int w=0;w<words;++w) visited[w] |= next[w];
+			}
+			else{
+				for(int w=0;w<words;++w){
+					for(long word=frontier[w];word!=0;word&=word-1){
+						int u = (w<<6)+Long.numberOfTrailingZeros(word);
+						int degree = G.degree(u);
+						for(int i=0;i<degree;++i){
+							int v = G.neighbor(u, i);
+							edgesExamined++;
+							if((visited[v>>>6]&(1L<<v))!=0) continue;
+							visited[v>>>6] |= 1L<<v;
+							next[v>>>6] |= 1L<<v;
+							parent[v] = u;
+							dist[v] = level;
+							frontierSize++;
+							frontierEdges += G.degree(v);
+						}
+					}
+				}
+			}
+			long[] temp = frontier;
+			frontier = next;
+			next = temp;
+		}
+	}
+
+	private void validateVertex(int i){
+		if(i < 0) throw new IllegalArgumentException("Vertex: " + i + " is negative.");
+		if(i > G.V()-1) throw new IllegalArgumentException("Vertex: " + i + " is larger than |V|=" + G.V() +".");
+	}
+
+	public int getSource(){
+		return source;
+	}
+
+	public int dist(int target){
+		validateVertex(target);
+		return dist[target];
+	}
+
+	public boolean isConnected(int target){
+		validateVertex(target);
+		return dist[target]!=INFINITY;
+	}
+
+	/**
+	 * @return parent of {@code target} in the BFS tree, or -1 for the source and unreached vertices
+	 */
+	public int parent(int target){
+		validateVertex(target);
+		return parent[target];
+	}
+
+	/**
+	 * @return number of edges looked at by the search
+	 */
+	public long edgesExamined(){
+		return edgesExamined;
+	}
+
+	/**
+	 * Unit tests the {@code DirectionOptimizingBFS} data type.
+	 *
+	 * @param args the command-line arguments
+	 */
+	public static void main(String[] args){
+		Digraph G = GraphGenerator.randomDirectedGraph(2000, 0.01);
+		DirectionOptimizingBFS d = new DirectionOptimizingBFS(G, 0);
+		BFS b = new BFS(G, 0);
+		boolean same = true;
+		long edges = 0;
+		for(int v=0;v<G.V();++v){
+			if(d.dist(v)!=b.dist(v)) same = false;
+			if(b.isConnected(v)) edges += G.outDegree(v);
+		}
+		System.out.println("Distances check: " + (same?"Ok!":"False!"));
+		System.out.println("Edges examined: " + d.edgesExamined() + " top-down: " + edges);
+	}
+}
@@ -3,28 +3,39 @@ import java.util.LinkedList;
 public class Echelon {
 	private Matrix mat;
 	private Matrix echelon;
+	private OperationLog log;
 	private LinkedList<ElementaryMatrix> operations;
 	private LinkedList<Integer[]> pivots;
 
+	/**
+	 * Reduced echelon form which records the row operations.
+	 * @param mat the matrix
+	 */
 	public Echelon(Matrix mat){
-		this.mat = new Matrix(mat);
-		GaussElimination g = new GaussElimination(mat);  		
+		this(mat,true);
+	}
+
+	/**
+	 * @param mat the matrix
+	 * @param recordOperations if false the row operations are applied without being recorded.
+	 */
+	public Echelon(Matrix mat , boolean recordOperations){
+		this.mat = (recordOperations?new Matrix(mat):mat);
+		GaussElimination g = new GaussElimination(mat,recordOperations);  		
 		this.echelon = g.getGauss();
-		this.operations = g.operations();
+		this.log = (recordOperations?new OperationLog(g.operationLog()):null);
 		this.pivots = g.pivots();
-		//Eliminate all rows below
+		//Eliminate all rows above
 
-		ElementaryMatrix e;
 		for(Integer[] pivot: pivots){
 			FieldElement f = echelon.get(pivot[0], pivot[1]).inverseElement();
-			e = new ElementaryMatrix(pivot[0], echelon.colNum(), f , getMatrix().unitElement());
-			operations.add(e);
-			echelon.elementaryOperation(e);
+			if(log!=null) log.addScaling(pivot[0], f);
+			echelon.scaleRow(pivot[0], f);
 			for(int k=pivot[0]-1;k>=0;--k){
 				f = echelon.get(k, pivot[1]).negationElement();
-				e = new ElementaryMatrix(pivot[0],k, echelon.colNum(), f , getMatrix().unitElement());
-				operations.add(e);
-				echelon.elementaryOperation(e);
+				if(!f.nonZeroElement()) continue;
+				if(log!=null) log.addAddition(pivot[0], k, f);
+				echelon.addRowMultiple(pivot[0], k, f);
 			}
 		}
 	}	
@@ -41,10 +52,24 @@ public class Echelon {
 	}
 	
 	
+	/**
+	 * @return the row operations as elementary matrices, built on first call.
+	 * @throws IllegalStateException if the operations were not recorded
+	 */
 	public LinkedList<ElementaryMatrix> operations(){
+		if(this.operations==null) this.operations = operationLog().toList();
 		return this.operations;
 	}
 
+	/**
+	 * @return packed log of the row operations.
+	 * @throws IllegalStateException if the operations were not recorded
+	 */
+	OperationLog operationLog(){
+		if(log==null) throw new IllegalStateException("Row operations were not recorded");
+		return this.log;
+	}
+
 	public LinkedList<Integer[]> pivots(){
 		return this.pivots;
 	}
@@ -56,7 +81,7 @@ public class Echelon {
 	 */
 	public String computation(){
 		String s = new String();
-		for(ElementaryMatrix e: this.operations){
+		for(ElementaryMatrix e: operations()){
 			s+=e.operationString();
 		}
 		return s;
@@ -71,11 +96,11 @@ public class Echelon {
 		Matrix m = new Matrix(this.mat);
 		s+= "Matrix:\n";
 		s+=mat.toString();
-		for(ElementaryMatrix e: this.operations){
+		for(ElementaryMatrix e: operations()){
 			s+= "****************************************************************\n";
 			s+=e.operationString();
 			m.elementaryOperation(e);
-			s+=mat.toString();
+			s+=m.toString();
 		}
 		
 		return s;
@@ -70,8 +70,8 @@ public class Edge implements Comparable<Edge>{
      *         endpoints of this edge
      */
     public int other(int vertex) {
-        if      (vertex == this.u) return this.u;
-        else if (vertex == this.v) return this.v;
+        if      (vertex == this.u) return this.v;
+        else if (vertex == this.v) return this.u;
         else throw new IllegalArgumentException("Illegal endpoint");
     }
 
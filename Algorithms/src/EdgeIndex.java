@@ -0,0 +1,62 @@
+/**
+ * Set of directed edges with O(1) membership.
+ * Dense graphs use one bit per vertex pair (a bitset of V rows), sparse
+ * graphs a {@link LongHashSet} keyed by {@code u<<32|v}.
+ */
+class EdgeIndex {
+	// Largest V*V for which the bitset is chosen automatically (8MB)
+	private static final long MAX_DENSE_BITS = 1L<<26;
+	private final int V;
+	private final long[] bits;
+	private final LongHashSet set;
+
+	/**
+	 * @param V number of vertices
+	 * @param dense true for the bitset, false for the hash set
+	 * @param expectedEdges number of edges expected in the index
+	 */
+	EdgeIndex(int V , boolean dense , int expectedEdges){
+		this.V = V;
+		if(dense){
+			long words = ((long)V*V+63)>>>6;
+			if(words>Integer.MAX_VALUE) throw new IllegalArgumentException("Too many vertices for a dense edge index");
+			this.bits = new long[(int) words];
+			this.set = null;
+		}
+		else{
+			this.bits = null;
+			this.set = new LongHashSet(expectedEdges);
+		}
+	}
+
+	/**
+	 * @return true if a bitset should index a graph with V vertices and E edges:
+	 *         it is small, or no larger than a hash set holding the edges.
+	 */
+	static boolean preferDense(int V , long E){
+		long bitsetBytes = ((long)V*V)>>>3;
+		return (long)V*V<=MAX_DENSE_BITS || bitsetBytes<=32*E;
+	}
+
+	boolean isDense(){
+		return bits!=null;
+	}
+
+	void add(int u , int v){
+		if(bits!=null){
+			long k = (long)u*V+v;
+			bits[(int)(k>>>6)] |= 1L<<k;
+		}
+		else{
+			set.add((long)u<<32|v);
+		}
+	}
+
+	boolean contains(int u , int v){
+		if(bits!=null){
+			long k = (long)u*V+v;
+			return (bits[(int)(k>>>6)]&(1L<<k))!=0;
+		}
+		return set.contains((long)u<<32|v);
+	}
+}
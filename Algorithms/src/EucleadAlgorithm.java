@@ -52,7 +52,7 @@ public class EucleadAlgorithm {
 
 	static int lcm(int n, int m){
 		EucleadAlgorithm g = new EucleadAlgorithm(n,m);
-		return n*m/g.getGcd();
+		return n/g.getGcd()*m;
 	}
 	
 	static int inverse(int n, int m){
@@ -0,0 +1,72 @@
+/**
+ * Fenwick (binary indexed) tree over the counts of the indices 0..n-1.
+ * Point updates, prefix sums and order statistics all take O(log n).
+ */
+public class FenwickTree {
+	private final int[] tree;
+	private final int n;
+
+	/**
+	 * @param n number of indices, all counts start at zero
+	 */
+	public FenwickTree(int n){
+		this.n = n;
+		this.tree = new int[n+1];
+	}
+
+	/**
+	 * Initializes a tree where every index has count one, in O(n).
+	 */
+	public static FenwickTree full(int n){
+		FenwickTree f = new FenwickTree(n);
+		for(int i=1;i<=n;++i){
+			f.tree[i] += 1;
+			int parent = i+(i&-i);
+			if(parent<=n) f.tree[parent] += f.tree[i];
+		}
+		return f;
+	}
+
+	public int size(){
+		return n;
+	}
+
+	/**
+	 * Adds delta to the count of index i.
+	 */
+	public void add(int i , int delta){
+		for(++i;i<=n;i+=i&-i) tree[i] += delta;
+	}
+
+	/**
+	 * @return sum of the counts of the indices [0,i)
+	 */
+	public int prefixSum(int i){
+		int sum = 0;
+		for(;i>0;i-=i&-i) sum += tree[i];
+		return sum;
+	}
+
+	/**
+	 * Order statistic for non-negative counts.
+	 * @return the smallest index i with {@code prefixSum(i+1)>k}, or n if there is none
+	 */
+	public int find(int k){
+		int position = 0;
+		for(int step=Integer.highestOneBit(Math.max(n,1));step>0;step>>=1){
+			int next = position+step;
+			if(next<=n && tree[next]<=k){
+				position = next;
+				k -= tree[next];
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Resets all counts to zero.
+	 */
+	public void clear(){
+		java.util.Arrays.fill(tree, 0);
+	}
+}
@@ -7,16 +7,31 @@ public class GaussElimination {
 	private Matrix mat;
 	private Matrix gauss;
 	private LinkedList<Integer[]> pivots;
+	private OperationLog log;
 	private LinkedList<ElementaryMatrix> operations;
+	private int rowSwitches;
 
+	/**
+	 * Gauss elimination which records the row operations.
+	 * @param mat the matrix
+	 */
 	public GaussElimination(Matrix mat){
-		this.mat = new Matrix(mat);
+		this(mat,true);
+	}
+
+	/**
+	 * @param mat the matrix
+	 * @param recordOperations if false the row operations are applied without being
+	 *        recorded, and {@code mat} is referenced instead of copied. This is enough
+	 *        for rank, determinant and singularity checks.
+	 */
+	public GaussElimination(Matrix mat , boolean recordOperations){
+		this.mat = (recordOperations?new Matrix(mat):mat);
 		this.gauss = new Matrix(mat);
-		this.operations = new LinkedList<ElementaryMatrix>();
+		this.log = (recordOperations?new OperationLog(mat.colNum(),mat.unitElement()):null);
 		this.pivots = new LinkedList<Integer[]>(); 
-		int currentRow=0 , m =(gauss.rowNum()<gauss.colNum()?gauss.rowNum():gauss.colNum());
-		ElementaryMatrix e;
-		for(int k=0 ; k< m;++k){
+		int currentRow=0 , m =gauss.colNum();
+		for(int k=0 ; k< m && currentRow<gauss.rowNum();++k){
 			int pivotRow=-1;
 			for(int t=currentRow; t< gauss.rowNum();++t){
 				if(gauss.get(t, k).nonZeroElement()){
@@ -36,9 +51,9 @@ public class GaussElimination {
 			
 			//Switch to pivot
 			if(currentRow!= pivotRow){
-				e = new ElementaryMatrix(currentRow, pivotRow, gauss.colNum(), gauss.unitElement());
-				operations.add(e);
-				gauss.elementaryOperation(e);
+				if(log!=null) log.addSwitch(currentRow, pivotRow);
+				gauss.switchRows(currentRow, pivotRow);
+				rowSwitches++;
 			}
 			
 			//Eliminate all rows below
@@ -46,18 +61,31 @@ public class GaussElimination {
 			for(int t=currentRow+1; t< gauss.rowNum();++t){
 				FieldElement f = inv.mult(gauss.get(t, k));
 				if(!f.nonZeroElement()) continue;
-				e = new ElementaryMatrix(k, t, gauss.colNum(), f , gauss.unitElement());
-				gauss.elementaryOperation(e);
-				operations.add(e);
+				if(log!=null) log.addAddition(currentRow, t, f);
+				gauss.addRowMultiple(currentRow, t, f);
 			}
 			currentRow++;
 		}
 	}
 	
+	/**
+	 * @return the row operations as elementary matrices, built on first call.
+	 * @throws IllegalStateException if the operations were not recorded
+	 */
 	public LinkedList<ElementaryMatrix> operations(){
+		if(this.operations==null) this.operations = operationLog().toList();
 		return this.operations;
 	}
 
+	/**
+	 * @return packed log of the row operations.
+	 * @throws IllegalStateException if the operations were not recorded
+	 */
+	OperationLog operationLog(){
+		if(log==null) throw new IllegalStateException("Row operations were not recorded");
+		return this.log;
+	}
+
 	public LinkedList<Integer[]> pivots(){
 		return this.pivots;
 	}
@@ -82,13 +110,12 @@ public class GaussElimination {
 	
 	public FieldElement det(){
 		if(!mat.isSquare()) throw new IllegalAccessError("Matrix must be a square matrix");
-		GaussElimination g = new GaussElimination(this.mat); 
-		if(g.isSingular()){ // Check if singular
+		if(isSingular()){
 			return mat.zeroElement();
 		}
 		
 		FieldElement det = mat.unitElement();
-		
+		if(rowSwitches%2!=0) det = det.negationElement();
 		for(int i=0;i<gauss.rowNum();++i){
 			det=det.mult(gauss.get(i, i));
 		}
@@ -117,7 +144,7 @@ public class GaussElimination {
 		LU[0].setToIdentity();
 		LU[2].setToIdentity();
 		
-		for(ElementaryMatrix e:operations){
+		for(ElementaryMatrix e:operations()){
 			switch(e.getType()){
 			case ROW_SWITCH:
 				LU[2].elementaryOperation(e);
@@ -142,7 +169,7 @@ public class GaussElimination {
 	 */
 	public String computation(){
 		String s = new String();
-		for(ElementaryMatrix e: this.operations){
+		for(ElementaryMatrix e: operations()){
 			s+=e.operationString();
 		}
 		return s;
@@ -157,7 +184,7 @@ public class GaussElimination {
 		Matrix m = new Matrix(this.mat);
 		s+= "Matrix:\n";
 		s+=mat.toString();
-		for(ElementaryMatrix e: this.operations){
+		for(ElementaryMatrix e: operations()){
 			s+= "****************************************************************\n";
 			s+=e.operationString();
 			m.elementaryOperation(e);
@@ -20,6 +20,8 @@ public class Graph extends Digraph{
     	validateVertex(j);
     	this.adj[i].add(j);
     	this.adj[j].add(i);
+    	indexEdge(i, j);
+    	indexEdge(j, i);
     	E++;
     }
     
@@ -34,6 +36,33 @@ public class Graph extends Digraph{
        return adj[v];
    }
    
+   /**
+    * In an undirected graph the in-neighbors are the neighbors.
+    * @param i vertex index
+    * @return degree of input vertex {@code i}.
+    */
+   public int inDegree(int i){
+	   return degree(i);
+   }
+   
+   /**
+    * In an undirected graph the in-neighbors are the neighbors.
+    * @param v vertex index
+    * @param i index in the adjacency list of {@code v}
+    * @return the i-th vertex adjacent to {@code v}.
+    */
+   public int inNeighbor(int v, int i){
+	   return neighbor(v, i);
+   }
+   
+   /**
+    * An undirected graph is its own reverse.
+    * @return a copy of this graph
+    */
+   public Graph reverse(){
+	   return new Graph(this);
+   }
+   
    /**
     * Initializes a new graph that is a deep copy of {@code G}.
     *
@@ -88,10 +88,12 @@ public class GraphGenerator {
 
 		int u,v;
         Graph G = new Graph(V);
+        // both directions of every edge are indexed
+        G.indexEdges(EdgeIndex.preferDense(V, 2L*E));
         while(G.E()<E){
         	u = StdRandom.uniform(V);
         	v = StdRandom.uniform(V);
-        	if(!G.edgeExists(u, v) && u!=v){
+        	if(u!=v && !G.edgeExists(u, v)){
         		G.addEdge(u, v);
         	}
         }
@@ -159,6 +161,7 @@ public class GraphGenerator {
         if (E > (long) numVertices0*numVertices1) throw new IllegalArgumentException("Too many edges");
         if (E < 0)            throw new IllegalArgumentException("Too few edges");
         Graph G = new Graph(numVertices0 + numVertices1);
+        G.indexEdges(EdgeIndex.preferDense(numVertices0 + numVertices1, 2L*E));
 
         int[] vertices = new int[numVertices0 + numVertices1];
         for (int i = 0; i < numVertices0 + numVertices1; i++)
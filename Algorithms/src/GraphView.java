@@ -0,0 +1,38 @@
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only, index based access to the adjacency of a graph, in both directions.
+ * Traversals written against this interface run without boxing or iterator
+ * allocation on every graph representation.
+ */
+public interface GraphView {
+	/**
+	 * @return number of vertices
+	 */
+	int V();
+
+	/**
+	 * @return number of neighbors of {@code v}
+	 */
+	int degree(int v);
+
+	/**
+	 * @return the i-th neighbor of {@code v}, for {@code 0 <= i < degree(v)}
+	 */
+	int neighbor(int v , int i);
+
+	/**
+	 * Applies {@code action} to every neighbor of {@code v}, in adjacency order.
+	 */
+	void forEachNeighbor(int v , IntConsumer action);
+
+	/**
+	 * @return number of vertices u with an edge u->v
+	 */
+	int inDegree(int v);
+
+	/**
+	 * @return the i-th in-neighbor of {@code v}, for {@code 0 <= i < inDegree(v)}
+	 */
+	int inNeighbor(int v , int i);
+}
@@ -1,6 +1,14 @@
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 
 public class GrayCode {
+	/**
+	 * Largest number of bits of {@link #grayCode(int)} and {@link #flips(int)},
+	 * so that the 2^n steps still fit in a positive long.
+	 */
+	public static final int MAX_BITS = 62;
+
 	/*
 	 * This function converts an unsigned binary
 	 * number to reflected binary Gray code.
@@ -41,28 +49,97 @@ public class GrayCode {
 	    return num;
 	}
 	
-	public static Iterable<Integer> grayCode(int n){
-		LinkedList<Integer> list = new LinkedList<Integer>();
-		LinkedList<Integer> auxList = new LinkedList<Integer>();
-		if(n==1){
-			list.add(0);
-			return list;
+	/*
+	 * binaryToGray for long codes, as walked by {@link #flips(int)}.
+	 */
+	public static long binaryToGray(long num)
+	{
+	    return num ^ (num >>> 1);
+	}
+
+	/**
+	 * Sequence of the bit indices flipped when walking through the n-bit Gray code,
+	 * i.e. 2^n-1 indices. The sequence is generated lazily, see {@link #flips(int)}.
+	 * @param n number of bits, at most {@link #MAX_BITS}
+	 */
+	public static Iterable<Integer> grayCode(final int n){
+		if(n<1 || n>MAX_BITS) throw new IllegalArgumentException("n must be between 1 and " + MAX_BITS);
+		return new Iterable<Integer>(){
+			public Iterator<Integer> iterator(){
+				return flips(n);
+			}
+		};
+	}
+
+	/**
+	 * @param n number of bits, at most {@link #MAX_BITS}
+	 * @return iterator over all 2^n-1 flips of the n-bit Gray code
+	 */
+	public static FlipIterator flips(int n){
+		if(n<1 || n>MAX_BITS) throw new IllegalArgumentException("n must be between 1 and " + MAX_BITS);
+		return new FlipIterator(1,1L<<n);
+	}
+
+	/**
+	 * Iterator over steps [from,to) of the Gray code walk. Step k turns
+	 * {@code binaryToGray(k-1)} into {@code binaryToGray(k)}, so disjoint
+	 * ranges can be walked independently.
+	 * @param from first step, at least 1
+	 * @param to end step (exclusive)
+	 */
+	public static FlipIterator flips(long from , long to){
+		if(from<1 || to<from) throw new IllegalArgumentException("invalid range [" + from + "," + to + ")");
+		return new FlipIterator(from,to);
+	}
+
+	/**
+	 * Lazy generator of Gray code flips, O(1) time and space per step.
+	 * {@link #code()} holds the Gray code reached after the last flip.
+	 */
+	public static final class FlipIterator implements PrimitiveIterator.OfInt {
+		private long step;
+		private final long end;
+		private long code;
+
+		private FlipIterator(long from , long to){
+			this.step = from;
+			this.end = to;
+			this.code = binaryToGray(from-1);
 		}
-		for(Integer i : grayCode(n-1)){
-			list.add(i);
-			auxList.add(i);
+
+		public boolean hasNext(){
+			return step<end;
+		}
+
+		/**
+		 * @return index of the bit flipped by the next step
+		 */
+		public int nextInt(){
+			if(step>=end) throw new NoSuchElementException();
+			int bit = Long.numberOfTrailingZeros(step++);
+			code ^= 1L<<bit;
+			return bit;
 		}
-		list.add(n-1);
-		for(Integer i : auxList){
-			list.add(i);
+
+		/**
+		 * @return current Gray code, the bits set in it are the marked indices
+		 */
+		public long code(){
+			return code;
+		}
+
+		/**
+		 * @return number of steps taken so far since the all-zero code
+		 */
+		public long step(){
+			return step-1;
 		}
-		return list;
 	}
 	
 	public static void main(String[] args){
 		//System.out.println(Integer.toBinaryString(binaryToGray(5)));
-		for(Integer i : grayCode(4)){
-			System.out.println(i);
+		for(FlipIterator it = flips(4);it.hasNext();){
+			System.out.println(it.nextInt());
 		}
 	}
 }
@@ -0,0 +1,72 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Growable list of primitive ints, used for adjacency lists.
+ * Iterating it as an {@code Iterable<Integer>} boxes, the index based
+ * and {@link #forEachInt} accessors do not.
+ */
+class IntList implements Iterable<Integer> {
+	private static final int[] EMPTY = new int[0];
+	private int[] a;
+	private int size;
+
+	IntList(){
+		this.a = EMPTY;
+	}
+
+	/**
+	 * Initializes a copy of {@code list}.
+	 */
+	IntList(IntList list){
+		this.a = java.util.Arrays.copyOf(list.a, list.size);
+		this.size = list.size;
+	}
+
+	void add(int x){
+		if(size==a.length) a = java.util.Arrays.copyOf(a, Math.max(4,2*size));
+		a[size++] = x;
+	}
+
+	int get(int i){
+		if(i<0 || i>=size) throw new IllegalArgumentException("Index " + i + " out of range");
+		return a[i];
+	}
+
+	int size(){
+		return size;
+	}
+
+	void forEachInt(IntConsumer action){
+		for(int i=0;i<size;++i) action.accept(a[i]);
+	}
+
+	public Iterator<Integer> iterator(){
+		return new Iterator<Integer>(){
+			private int i = 0;
+
+			public boolean hasNext(){
+				return i<size;
+			}
+
+			public Integer next(){
+				if(i>=size) throw new NoSuchElementException();
+				return a[i++];
+			}
+
+			public void remove(){
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public String toString(){
+		StringBuilder s = new StringBuilder("[");
+		for(int i=0;i<size;++i){
+			if(i>0) s.append(", ");
+			s.append(a[i]);
+		}
+		return s.append(']').toString();
+	}
+}
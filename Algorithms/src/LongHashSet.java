@@ -0,0 +1,79 @@
+/**
+ * Open addressing hash set of non-negative longs, with linear probing.
+ * Keys are stored in a single {@code long[]}, so there is no boxing and no
+ * per-entry object. The table is kept at most half full.
+ */
+class LongHashSet {
+	private static final long EMPTY = -1L;
+	private long[] table;
+	private int size;
+	private int mask;
+
+	LongHashSet(){
+		this(16);
+	}
+
+	/**
+	 * @param expected number of keys which fit without resizing
+	 */
+	LongHashSet(int expected){
+		int capacity = Integer.highestOneBit(Math.max(4,expected)*2-1)<<1;
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity){
+		this.table = new long[capacity];
+		java.util.Arrays.fill(table, EMPTY);
+		this.mask = capacity-1;
+	}
+
+	private static int hash(long key){
+		// finalizer of MurmurHash3, spreads the vertex bits over the table
+		key ^= key>>>33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key>>>33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key>>>33;
+		return (int) key;
+	}
+
+	/**
+	 * @param key non-negative key
+	 * @return true if the key was not in the set
+	 */
+	boolean add(long key){
+		if(key<0) throw new IllegalArgumentException("key must be non-negative");
+		int i = hash(key)&mask;
+		while(table[i]!=EMPTY){
+			if(table[i]==key) return false;
+			i = (i+1)&mask;
+		}
+		table[i] = key;
+		if(++size*2>table.length) rehash();
+		return true;
+	}
+
+	boolean contains(long key){
+		int i = hash(key)&mask;
+		while(table[i]!=EMPTY){
+			if(table[i]==key) return true;
+			i = (i+1)&mask;
+		}
+		return false;
+	}
+
+	int size(){
+		return size;
+	}
+
+	private void rehash(){
+		long[] old = table;
+		allocate(2*old.length);
+		for(long key : old){
+			if(key==EMPTY) continue;
+			int i = hash(key)&mask;
+			while(table[i]!=EMPTY) i = (i+1)&mask;
+			table[i] = key;
+		}
+	}
+}
@@ -1,4 +1,5 @@
 import java.rmi.UnexpectedException;
+import java.util.Iterator;
 import java.util.LinkedList;
 
 public class Matrix {
@@ -6,6 +7,14 @@ public class Matrix {
 	private int rowNum , colNum;
 	private FieldElement zeroElement,unitElement;
 	
+	// Factorization of the current entries, dropped whenever an entry changes.
+	// Modular matrices use the factorization cached by their primitive copy.
+	private Boolean modular;
+	private GaussElimination gaussElimination;
+	private boolean gaussEliminationRecorded;
+	private ModularMatrix modularMatrix;
+	private Matrix inverse;
+	
 	public Matrix(int n , int m , FieldElement f){
 		if(n<=0) throw new IllegalArgumentException("n must be positive");
 		if(m<=0) throw new IllegalArgumentException("m must be positive");
@@ -98,6 +107,69 @@ public class Matrix {
 		}
 	}
 	
+	/**
+	 * @return primitive copy of this matrix. The entries must be {@link ModularNumber}s.
+	 */
+	public ModularMatrix toModularMatrix(){
+		return new ModularMatrix(this);
+	}
+	
+	/**
+	 * @return true if all entries are {@link ModularNumber}s of the same characteristic.
+	 */
+	public boolean isModular(){
+		if(modular!=null) return modular;
+		modular = (unitElement instanceof ModularNumber);
+		for(int i=0;i<rowNum && modular;++i){
+			for(int j=0;j<colNum;++j){
+				if(!(mat[i][j] instanceof ModularNumber) || mat[i][j].characteristic()!=unitElement.characteristic()){
+					modular = false;
+					break;
+				}
+			}
+		}
+		return modular;
+	}
+	
+	/**
+	 * Drops the cached factorizations. Called by every method that changes an entry.
+	 * Entries changed through the elements returned by {@link #get} are not tracked.
+	 */
+	private void invalidate(){
+		modular = null;
+		gaussElimination = null;
+		modularMatrix = null;
+		inverse = null;
+	}
+	
+	/**
+	 * The elimination is shared by {@link #det()}, {@link #rank()}, {@link #inverse()}
+	 * and the solvers when the matrix is not modular. It is built without recording
+	 * and replaced by a recording one the first time the row operations are needed.
+	 * 
+	 * @param recordOperations whether the elimination must record its row operations
+	 * @return cached Gauss elimination of this matrix
+	 */
+	private GaussElimination gaussElimination(boolean recordOperations){
+		if(gaussElimination==null || (recordOperations && !gaussEliminationRecorded)){
+			gaussElimination = new GaussElimination(this,recordOperations);
+			gaussEliminationRecorded = recordOperations;
+		}
+		return gaussElimination;
+	}
+	
+	/**
+	 * @return cached primitive copy of this matrix, valid when {@link #isModular()}.
+	 *         Its cached factorization P*A=L*U is used in place of
+	 *         {@link #gaussElimination(boolean)} for modular matrices.
+	 */
+	private ModularMatrix modularMatrix(){
+		if(modularMatrix==null){
+			modularMatrix = toModularMatrix();
+		}
+		return modularMatrix;
+	}
+	
 	public int rowNum(){
 		return this.rowNum;
 	}
@@ -113,13 +185,15 @@ public class Matrix {
 	
 	public void add(int i,int j , FieldElement f){
 		if(i>=rowNum()) throw new IllegalArgumentException(" i must greater equal to 0 and small than n");
-		if(i>=colNum()) throw new IllegalArgumentException(" i must greater equal to 0 and small than n");
+		if(j>=colNum()) throw new IllegalArgumentException(" i must greater equal to 0 and small than n");
+		invalidate();
 		this.mat[i][j].addElement(f);
 	}
 	
 	public void set(int i,int j,FieldElement f){
 		if(i>=rowNum()) throw new IllegalArgumentException(" i must greater equal to 0 and small than n");
 		if(j>=colNum()) throw new IllegalArgumentException(" i must greater equal to 0 and small than n");
+		invalidate();
 		this.mat[i][j]=f.cloneElement();
 	}
 	
@@ -148,6 +222,12 @@ public class Matrix {
 	public Matrix multRight(Matrix mat){
 		if(mat.rowNum()!= this.rowNum()) throw new IllegalArgumentException("Row size does not match");
 		if(mat.colNum()!= this.colNum()) throw new IllegalArgumentException("Column size does not match");
+		if(this.isModular() && mat.isModular() && this.unitElement.characteristic()==mat.unitElement.characteristic()){
+			// Use the primitive kernels over GF(p), Strassen-Winograd for large square products
+			ModularMatrix a = this.toModularMatrix() , b = mat.toModularMatrix();
+			boolean strassen = a.isSquare() && a.rowNum()>ModularMatrix.DEFAULT_STRASSEN_CROSSOVER;
+			return (strassen?a.multStrassen(b):a.multRight(b)).toMatrix();
+		}
 		Matrix product = new Matrix(mat.rowNum,mat.colNum,zeroElement);
 		for(int i=0;i<mat.rowNum();++i){
 			for(int j=0;j<colNum();++j){
@@ -176,47 +256,81 @@ public class Matrix {
 	public void elementaryOperation(ElementaryMatrix e){
     	switch(e.getType()){
     	case ROW_SWITCH:
-    		for(int k=0 ; k<this.colNum();++k){
-    			FieldElement temp = this.get(e.geti(), k);
-        		this.set(e.geti(), k, this.get(e.getj(), k));
-        		this.set(e.getj(), k, temp);
-    		}
+    		switchRows(e.geti(), e.getj());
     		return;
     	case ROW_ADDITION:
-    		for(int k=0 ; k<this.colNum();++k){
-    			FieldElement f = this.get(e.geti(), k).mult(e.getScale()).add(this.get(e.getj(), k));
-    			this.set(e.getj(), k, f);
-    		}
-    		
+    		addRowMultiple(e.geti(), e.getj(), e.getScale());
     		return;
     	case ROW_SCALING:
-    		for(int k=0 ; k<this.colNum();++k){
-    			FieldElement f = this.get(e.geti(), k).mult(e.getScale());
-    			this.set(e.geti(), k, f);
-    		}    		
+    		scaleRow(e.geti(), e.getScale());
     		return;
 		}
 	}
 	
+	/**
+	 * Switches row {@code i} with row {@code j}.
+	 */
+	void switchRows(int i , int j){
+		invalidate();
+		FieldElement[] temp = this.mat[i];
+		this.mat[i] = this.mat[j];
+		this.mat[j] = temp;
+	}
+	
+	/**
+	 * Adds {@code scale} times row {@code i} to row {@code j}.
+	 * The new entries are fresh elements, so they are stored without cloning.
+	 */
+	void addRowMultiple(int i , int j , FieldElement scale){
+		invalidate();
+		for(int k=0 ; k<this.colNum();++k){
+			this.mat[j][k] = this.mat[i][k].mult(scale).add(this.mat[j][k]);
+		}
+	}
+	
+	/**
+	 * Multiplies row {@code i} by {@code scale}.
+	 */
+	void scaleRow(int i , FieldElement scale){
+		invalidate();
+		for(int k=0 ; k<this.colNum();++k){
+			this.mat[i][k] = this.mat[i][k].mult(scale);
+		}
+	}
+	
 	public boolean isSquare(){
 		return rowNum()==colNum();
 	}
 	
 	public FieldElement det(){
-		GaussElimination g = new GaussElimination(this);
-		return g.det();
+		if(isSquare() && isModular()){
+			// Primitive factorization, no FieldElement per row operation
+			return new ModularNumber(modularMatrix().det(),unitElement.characteristic());
+		}
+		return gaussElimination(false).det();
 	}
 
 	public Matrix inverse(){
 		if(!isSquare()) throw new IllegalAccessError("Matrix must be a square matrix");
-		Matrix inverse = new Matrix(rowNum(),colNum(), unitElement());
-		inverse.setToIdentity();
-		Echelon echelon = new Echelon(this); 
-		if(echelon.pivots().size()==rowNum()) throw new IllegalArgumentException("matrix is singlar");
-		for(ElementaryMatrix elementary: echelon.operations()){
-			inverse.elementaryOperation(elementary);
+		if(this.inverse==null){
+			if(isModular()){
+				this.inverse = modularMatrix().inverse().toMatrix();
+			}
+			else{
+				// Solve against every unit vector with the cached elimination
+				GaussElimination g = gaussElimination(true);
+				if(g.rank()!=rowNum()) throw new IllegalArgumentException("matrix is singlar");
+				Matrix inverse = new Matrix(rowNum(),colNum(), zeroElement);
+				FieldElement[] e = new FieldElement[rowNum()];
+				for(int j=0;j<colNum();++j){
+					for(int i=0;i<e.length;++i) e[i] = (i==j?unitElement:zeroElement);
+					FieldElement[] column = particularSolution(this,g,e);
+					for(int i=0;i<column.length;++i) inverse.mat[i][j] = column[i];
+				}
+				this.inverse = inverse;
+			}
 		}
-		return inverse;
+		return new Matrix(this.inverse);
 	}
 	
 	/**
@@ -227,10 +341,12 @@ public class Matrix {
 		if(!this.isSquare()) throw new IllegalArgumentException("cannot compute permanent for non-square matrix");
 		int size = this.rowNum();
 		FieldElement permanent = zeroElement;
-		for(Permutation permutation: Permutation.allPermutations(size)){
+		SJTIterator permutations = new SJTIterator(size);
+		while(permutations.hasNext()){
+			int[] permutation = permutations.next();
 			FieldElement f = unitElement;
 			for(int i=0 ; i<size;++i){
-				f = f.mult(get(i, permutation.getIndex(i)));
+				f = f.mult(get(i, permutation[i]));
 			}
 			permanent = permanent.add(f);
 		}
@@ -249,14 +365,15 @@ public class Matrix {
 		if(!this.isSquare()) throw new IllegalArgumentException("cannot compute permanent for non-square matrix");
 		int size = this.rowNum(),sign=(rowNum()%2==0?1:-1);
 		FieldElement permanent = zeroElement , currentProduct;
-		boolean[] columnMarked = new boolean[size];
 		FieldElement[] rowSum = new FieldElement[size];
 		for(int i=0;i<size;++i)rowSum[i] = zeroElement;
-		for(int i: GrayCode.grayCode(size)){
+		GrayCode.FlipIterator flips = GrayCode.flips(size);
+		while(flips.hasNext()){
+			int i = flips.nextInt();
 			sign = sign*(-1);
 			currentProduct = this.unitElement;
-			columnMarked[i] = !columnMarked[i];
-			for(int j=0;j<size;++j) rowSum[j] = (columnMarked[i]?rowSum[j].add(get(j, i)):rowSum[j].subtract(get(j, i)));
+			boolean columnMarked = (flips.code()>>>i&1)!=0;
+			for(int j=0;j<size;++j) rowSum[j] = (columnMarked?rowSum[j].add(get(j, i)):rowSum[j].subtract(get(j, i)));
 			for(int j=0;j<size;++j){
 				currentProduct = currentProduct.mult(rowSum[j]);
 				if(!currentProduct.nonZeroElement())break;
@@ -266,47 +383,75 @@ public class Matrix {
 		return permanent;
 	}
 	
+	/**
+	 * Parallel computation of the permanent of square matrix.
+	 * The Gray code sequence of the Ryser formula is split into ranges which
+	 * run on the common ForkJoin pool, see {@link RyserPermanent}.
+	 * 
+	 * @return Permanent of square matrix.
+	 */
+	public FieldElement parallelPermanent(){
+		return RyserPermanent.permanent(this);
+	}
+	
+	/**
+	 * Back substitution on the echelon form computed by {@code g}.
+	 * 
+	 * @param a matrix
+	 * @param g Gauss elimination of a
+	 * @param y right-hand side after the row operations of g, or null for zero
+	 * @param freeVariable free variable which is set to one, or -1 for none
+	 * @return solution vector, or null if y is nonzero on a zero row of the echelon form
+	 */
+	private static FieldElement[] backSubstitution(Matrix a , GaussElimination g , FieldElement[] y , int freeVariable){
+		int numOfVariables = a.colNum();
+		if(y!=null){
+			for(int j=g.rank();j<a.rowNum();++j){
+				if(y[j].nonZeroElement()) return null;
+			}
+		}
+		FieldElement[] solution = new FieldElement[numOfVariables];
+		for(int k=0; k<solution.length  ; ++k) solution[k] = a.zeroElement();
+		if(freeVariable>=0) solution[freeVariable] = a.unitElement();
+		Iterator<Integer[]> pivots = g.pivots().descendingIterator();
+		while(pivots.hasNext()){ // find solution via backward substitution
+			Integer[] pivot = pivots.next();
+			int j = pivot[0] , column = pivot[1];
+			FieldElement f = (y==null?a.zeroElement():y[j]);
+			for(int k=column+1 ; k<numOfVariables; ++k){
+				if(solution[k].nonZeroElement()) f = f.subtract(g.get(j, k).mult(solution[k]));
+			}
+			solution[column] = f.divide(g.get(j, column));
+		}
+		return solution;
+	}
+	
 	/**
 	 * Solve the linear equation ax=0
 	 * 
 	 * @param a matrix
-	 * @param b vector
 	 * @return list of vectors which form a basis for the solution space
 	 */
 	public static LinkedList<FieldElement[]> solve(Matrix a){
-		int numOfVariables = a.colNum();
-		int numOfEquations = a.rowNum();
-		Matrix mat = new Matrix(a);
-		FieldElement zero = a.zeroElement();
-		GaussElimination g = new GaussElimination(a);
 		LinkedList<FieldElement[]> solutions = new LinkedList<FieldElement[]>();
+		if(a.isModular()){
+			int p = a.unitElement.characteristic();
+			for(int[] solution : ModularMatrix.solve(a.modularMatrix())){
+				solutions.add(toFieldVector(solution,p));
+			}
+			return solutions;
+		}
+		int numOfVariables = a.colNum();
+		GaussElimination g = a.gaussElimination(false);
 		boolean[] isPivot = new boolean[numOfVariables];
 		for(Integer[] pivot: g.pivots()){ // Flag variables which are pivots
 			isPivot[pivot[1]] = true;
 		}
 		
-		FieldElement[] solution;
 		for(int i=0; i<numOfVariables  ; ++i){ // Loop on solutions - every non-pivot is a solution
-			if(isPivot[i]) continue; // 
-			solution = new FieldElement[numOfVariables];
-			for(int k=0; k<solution.length  ; ++k) solution[k] = mat.zeroElement();
-			solution[i] = mat.unitElement(); // this solution is 1 on i and zero on every other non-pivot
-			boolean[] valueIsSet = new boolean[mat.colNum()]; 
-			for(int j=numOfEquations-1;j>=0;--j){ // find solution via backward substitution
-				FieldElement f = mat.zeroElement();
-				for(int k=numOfVariables-1 ; k>=0; --k){
-					if(isPivot[k] && !valueIsSet[k]){
-						solution[k] = zero.subtract(f);
-						solution[k] = solution[k].divide(g.get(j, k));
-						valueIsSet[k] = true; //so that next loop we will not consider it as pivot
-						break;
-					}
-					else{
-						f = f.add(g.get(j, k).mult(solution[k]));
-					}
-				}
-			}
-			solutions.add(solution);
+			if(isPivot[i]) continue; 
+			// this solution is 1 on i and zero on every other non-pivot
+			solutions.add(backSubstitution(a,g,null,i));
 		}
 		return solutions;
 	}
@@ -316,57 +461,134 @@ public class Matrix {
 	 * 
 	 * @param a matrix
 	 * @param b vector
-	 * @return list of vectors which form a basis for the solution space
+	 * @return a particular solution followed by its sums with the basis of the
+	 *         homogeneous solution space, or an empty list if there is no solution
 	 */
 	public static LinkedList<FieldElement[]> solve(Matrix a , FieldElement[] b){
 		if(a.rowNum()!=b.length) throw new IllegalArgumentException("vector b with size" + b.length + " does not match row size of a " + a.rowNum());
 		LinkedList<FieldElement[]> solutions = new LinkedList<FieldElement[]>();
-
-		
-		int numOfVariables = a.colNum();
-		int numOfEquations = a.rowNum();
-		Matrix solVector = new Matrix(b.length,1,a.unitElement());
-		for(int i=0 ; i<numOfEquations;++i) solVector.set(i, 0, b[i]);
-		Matrix mat = new Matrix(a);
-
-		GaussElimination g = new GaussElimination(a);
-		for(ElementaryMatrix op: g.operations()){
-			solVector.elementaryOperation(op);
+		FieldElement[] particularSolution = particularSolution(a,b);
+		if(particularSolution==null) return solutions;
+		solutions.add(particularSolution);
+		for(FieldElement[] homogeneousSolution : solve(a)){
+			FieldElement[] solution = new FieldElement[a.colNum()];
+			for(int i=0 ; i< solution.length ; ++i){
+				solution[i] = homogeneousSolution[i].add(particularSolution[i]);
+			}
+			solutions.add(solution);
 		}
-		boolean[] isPivot = new boolean[numOfVariables];
-		for(Integer[] pivot: g.pivots()){ // Flag variables which are pivots
-			isPivot[pivot[1]] = true;
+		return solutions;
+	}
+	
+	/**
+	 * @return a particular solution of ax=b from the cached factorization of a,
+	 *         or null if there is none
+	 */
+	private static FieldElement[] particularSolution(Matrix a , FieldElement[] b){
+		if(a.isModular()){
+			int p = a.unitElement.characteristic();
+			int[] y = toModularVector(b,p);
+			if(y!=null){
+				int[] solution = ModularMatrix.solve(a.modularMatrix(),y);
+				return (solution==null?null:toFieldVector(solution,p));
+			}
 		}
-		
-		FieldElement[] particularSolution = new FieldElement[numOfVariables];
-		for(int k=0; k<particularSolution.length  ; ++k) particularSolution[k] = mat.zeroElement();			
-		boolean[] valueIsSet = new boolean[mat.colNum()]; 
-		for(int j=numOfEquations-1;j>=0;--j){ // find solution via backward substitution
-			FieldElement f = mat.zeroElement();
-			for(int k=numOfVariables-1 ; k>=0; --k){
-				if(isPivot[k] && !valueIsSet[k]){
-					particularSolution[k] = solVector.get(j,0).subtract(f);
-					particularSolution[k] = particularSolution[k].divide(g.get(j, k));
-					valueIsSet[k] = true; //so that next loop we will not consider it as pivot
+		return particularSolution(a,a.gaussElimination(true),b);
+	}
+	
+	/**
+	 * @return primitive copy of {@code b}, or null if some entry is not a
+	 *         {@link ModularNumber} of characteristic {@code p}
+	 */
+	private static int[] toModularVector(FieldElement[] b , int p){
+		int[] y = new int[b.length];
+		for(int i=0;i<b.length;++i){
+			if(!(b[i] instanceof ModularNumber) || b[i].characteristic()!=p) return null;
+			int r = ((ModularNumber) b[i]).n%p;
+			y[i] = (r<0?r+p:r);
+		}
+		return y;
+	}
+	
+	private static FieldElement[] toFieldVector(int[] x , int p){
+		FieldElement[] v = new FieldElement[x.length];
+		for(int i=0;i<x.length;++i) v[i] = new ModularNumber(x[i],p);
+		return v;
+	}
+	
+	/**
+	 * @return a particular solution of ax=b, or null if there is none
+	 */
+	private static FieldElement[] particularSolution(Matrix a , GaussElimination g , FieldElement[] b){
+		if(a.rowNum()!=b.length) throw new IllegalArgumentException("vector b with size" + b.length + " does not match row size of a " + a.rowNum());
+		FieldElement[] y = new FieldElement[b.length];
+		System.arraycopy(b, 0, y, 0, b.length);
+		g.operationLog().replay(y);
+		return backSubstitution(a,g,y,-1);
+	}
+	
+	/**
+	 * Solve ax=b for many right-hand sides. The elimination of {@code a} is done
+	 * once (and cached), each right-hand side costs O(n^2).
+	 * Modular systems are solved on primitive ints by {@link ModularMatrix#solveBatch}.
+	 * 
+	 * @param a matrix
+	 * @param rhs right-hand sides
+	 * @return a particular solution for each right-hand side, in order,
+	 *         with null for the right-hand sides that have no solution
+	 */
+	public static LinkedList<FieldElement[]> solveBatch(Matrix a , Iterable<FieldElement[]> rhs){
+		LinkedList<FieldElement[]> solutions = new LinkedList<FieldElement[]>();
+		if(a.isModular()){
+			int p = a.unitElement.characteristic();
+			LinkedList<int[]> modularRhs = new LinkedList<int[]>();
+			for(FieldElement[] b : rhs){
+				int[] y = toModularVector(b,p);
+				if(y==null){
+					modularRhs = null;
 					break;
 				}
-				else{
-					f = f.add(g.get(j, k).mult(particularSolution[k]));
+				modularRhs.add(y);
+			}
+			if(modularRhs!=null){
+				for(int[] solution : ModularMatrix.solveBatch(a.modularMatrix(),modularRhs)){
+					solutions.add(solution==null?null:toFieldVector(solution,p));
 				}
+				return solutions;
 			}
 		}
-		
-		for(FieldElement[] homogeneousSolution : solve(a)){
-			FieldElement[] solution = new FieldElement[numOfVariables];
-			for(int i=0 ; i< solution.length ; ++i){
-				solution[i] = homogeneousSolution[i].add(particularSolution[i]);
-			}
-			solutions.add(solution);
+		GaussElimination g = a.gaussElimination(true);
+		for(FieldElement[] b : rhs){
+			solutions.add(particularSolution(a,g,b));
 		}
-		
 		return solutions;
 	}
 	
+	/**
+	 * Solve ax=b for every column b of {@code rhs}.
+	 * 
+	 * @param a matrix
+	 * @param rhs matrix whose columns are the right-hand sides
+	 * @return matrix x with ax=rhs
+	 * @throws IllegalArgumentException if some column has no solution
+	 */
+	public static Matrix solveBatch(Matrix a , Matrix rhs){
+		if(a.rowNum()!=rhs.rowNum()) throw new IllegalArgumentException("Row size of rhs " + rhs.rowNum() + " does not match row size of a " + a.rowNum());
+		if(a.isModular() && rhs.isModular() && a.unitElement.characteristic()==rhs.unitElement.characteristic()){
+			return ModularMatrix.solveBatch(a.modularMatrix(),rhs.modularMatrix()).toMatrix();
+		}
+		GaussElimination g = a.gaussElimination(true);
+		Matrix x = new Matrix(a.colNum(),rhs.colNum(),a.zeroElement);
+		FieldElement[] b = new FieldElement[rhs.rowNum()];
+		for(int j=0;j<rhs.colNum();++j){
+			for(int i=0;i<b.length;++i) b[i] = rhs.mat[i][j];
+			FieldElement[] solution = particularSolution(a,g,b);
+			if(solution==null) throw new IllegalArgumentException("column " + j + " of rhs has no solution");
+			for(int i=0;i<solution.length;++i) x.mat[i][j] = solution[i];
+		}
+		return x;
+	}
+	
 	public FieldElement zeroElement() {
 		return zeroElement.cloneElement();
 	}
@@ -376,8 +598,10 @@ public class Matrix {
 	}
 
 	public int rank(){
-		GaussElimination g = new GaussElimination(this);
-		return g.pivots().size();
+		if(isModular()){
+			return modularMatrix().rank();
+		}
+		return gaussElimination(false).rank();
 	}
 
 	public boolean isFullRank(){
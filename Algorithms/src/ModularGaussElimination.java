@@ -0,0 +1,328 @@
+import java.util.LinkedList;
+
+/**
+ * Gaussian elimination over GF(p) on primitive storage.
+ * The elimination runs in a single row-major {@code int[]}: entries on and
+ * above the pivots hold the echelon form and entries below them hold the
+ * multipliers, so that P*A = L*U with L unit lower triangular.
+ * The row permutation P and the pivot columns are kept in {@code int[]}s;
+ * no objects are allocated per row operation.
+ */
+public class ModularGaussElimination {
+	private static final int PANEL_SIZE = 64;
+	private final int[] lu;
+	private final int rowNum , colNum , p;
+	private final int[] rowPermutation;
+	private final int[] pivotColumns;
+	private int rank;
+	private boolean oddPermutation;
+
+	/**
+	 * Eliminates a copy of {@code mat}.
+	 * @param mat the matrix
+	 */
+	public ModularGaussElimination(ModularMatrix mat){
+		this(mat,false);
+	}
+
+	/**
+	 * @param mat the matrix
+	 * @param inPlace if true the storage of {@code mat} is overwritten by the
+	 *        packed factors instead of being copied.
+	 */
+	public ModularGaussElimination(ModularMatrix mat , boolean inPlace){
+		this.rowNum = mat.rowNum();
+		this.colNum = mat.colNum();
+		this.p = mat.characteristic();
+		this.lu = (inPlace?mat.data():mat.data().clone());
+		if(inPlace) mat.invalidate();
+		this.rowPermutation = new int[rowNum];
+		for(int i=0;i<rowNum;++i) rowPermutation[i] = i;
+		this.pivotColumns = new int[Math.min(rowNum,colNum)];
+		eliminate();
+	}
+
+	/**
+	 * Right-looking blocked elimination. Each panel of {@code PANEL_SIZE} columns
+	 * is eliminated unblocked, the pivot rows are solved against the panel to the
+	 * right of it, and the rows below are updated with the tiled kernel of
+	 * {@link ModularMatrix}. Columns without a pivot are skipped as in the
+	 * unblocked algorithm, so the result is the same echelon form.
+	 */
+	private void eliminate(){
+		int n = rowNum , m = colNum , currentRow = 0;
+		for(int k0=0;k0<m && currentRow<n;k0+=PANEL_SIZE){
+			int k1 = Math.min(k0+PANEL_SIZE,m) , r0 = currentRow;
+			currentRow = eliminatePanel(k0,k1,r0);
+			int r = currentRow-r0;
+			if(r==0 || k1==m) continue;
+			// U12 = L11^{-1} A12 on the pivot rows of the panel
+			for(int t=r0;t<currentRow;++t){
+				int pivotOffset = t*m , k = pivotColumns[t];
+				for(int i=t+1;i<currentRow;++i){
+					long l = lu[i*m+k];
+					if(l==0) continue;
+					long f = p-l;
+					int rowOffset = i*m;
+					for(int j=k1;j<m;++j){
+						lu[rowOffset+j] = (int)((lu[rowOffset+j]+f*lu[pivotOffset+j])%p);
+					}
+				}
+			}
+			if(currentRow==n) continue;
+			// A22 = A22 - L21*U12, L21 being the multipliers in the pivot columns
+			int rows = n-currentRow;
+			if(r==k1-k0){
+				ModularMatrix.multiplySubtract(lu,currentRow*m+k0,m,lu,r0*m+k1,m,lu,currentRow*m+k1,m,rows,r,m-k1,p);
+			}
+			else{
+				int[] l21 = new int[rows*r];
+				for(int i=0;i<rows;++i){
+					for(int t=0;t<r;++t) l21[i*r+t] = lu[(currentRow+i)*m+pivotColumns[r0+t]];
+				}
+				ModularMatrix.multiplySubtract(l21,0,r,lu,r0*m+k1,m,lu,currentRow*m+k1,m,rows,r,m-k1,p);
+			}
+		}
+		this.rank = currentRow;
+	}
+
+	/**
+	 * Unblocked elimination of columns [k0,k1) from row r0 down. Row interchanges
+	 * are applied to whole rows, row additions only inside the panel.
+	 * @return the row following the last pivot row found
+	 */
+	private int eliminatePanel(int k0 , int k1 , int r0){
+		int n = rowNum , m = colNum , currentRow = r0;
+		int[] a = lu;
+		for(int k=k0;k<k1 && currentRow<n;++k){
+			int pivotRow=-1;
+			for(int t=currentRow;t<n;++t){
+				if(a[t*m+k]!=0){
+					pivotRow=t;
+					break;
+				}
+			}
+			if(pivotRow<0){
+				//Note that currentRow is not incremented
+				continue;
+			}
+
+			//Switch to pivot, multipliers stored in the row move along with it
+			if(pivotRow!=currentRow){
+				int row0 = currentRow*m , row1 = pivotRow*m;
+				for(int j=0;j<m;++j){
+					int temp = a[row0+j];
+					a[row0+j] = a[row1+j];
+					a[row1+j] = temp;
+				}
+				int temp = rowPermutation[currentRow];
+				rowPermutation[currentRow] = rowPermutation[pivotRow];
+				rowPermutation[pivotRow] = temp;
+				oddPermutation = !oddPermutation;
+			}
+
+			//Eliminate all rows below and keep the multiplier in place of the eliminated entry
+			int pivotOffset = currentRow*m;
+			long inv = ModularMatrix.inverse(a[pivotOffset+k],p);
+			for(int t=currentRow+1;t<n;++t){
+				int rowOffset = t*m;
+				if(a[rowOffset+k]==0) continue;
+				long l = a[rowOffset+k]*inv%p , f = p-l;
+				a[rowOffset+k] = (int) l;
+				for(int j=k+1;j<k1;++j){
+					a[rowOffset+j] = (int)((a[rowOffset+j]+f*a[pivotOffset+j])%p);
+				}
+			}
+			pivotColumns[currentRow] = k;
+			currentRow++;
+		}
+		return currentRow;
+	}
+
+	public int rank(){
+		return rank;
+	}
+
+	public boolean isFullRank(){
+		return rank==Math.min(rowNum,colNum);
+	}
+
+	public boolean isSingular(){
+		if(rowNum!=colNum) throw new IllegalArgumentException("Matrix must be a square matrix");
+		return rank<rowNum;
+	}
+
+	public int det(){
+		if(rowNum!=colNum) throw new IllegalArgumentException("Matrix must be a square matrix");
+		if(rank<rowNum) return 0;
+		long det = (oddPermutation?p-1:1);
+		for(int i=0;i<rowNum;++i){
+			det = det*lu[i*colNum+i]%p;
+		}
+		return (int) det;
+	}
+
+	/**
+	 * @return pivot column of each of the {@link #rank()} nonzero rows of the echelon form.
+	 */
+	public int[] pivotColumns(){
+		int[] pivots = new int[rank];
+		System.arraycopy(pivotColumns, 0, pivots, 0, rank);
+		return pivots;
+	}
+
+	/**
+	 * @return array whose i-th entry is the row of the original matrix placed at row i.
+	 */
+	public int[] rowPermutation(){
+		return rowPermutation.clone();
+	}
+
+	/**
+	 * @return entry of the echelon form U.
+	 */
+	public int get(int i , int j){
+		validateIndex(i, j);
+		if(i>=rank || j<pivotColumns[i]) return 0;
+		return lu[i*colNum+j];
+	}
+
+	/**
+	 * @return entry of the unit lower triangular factor L, which is {@code rowNum()}x{@code rowNum()}.
+	 */
+	public int getL(int i , int j){
+		if(i<0 || i>=rowNum || j<0 || j>=rowNum) throw new IllegalArgumentException("index out of range");
+		if(i==j) return 1;
+		if(j>i || j>=rank) return 0;
+		return lu[i*colNum+pivotColumns[j]];
+	}
+
+	private void validateIndex(int i , int j){
+		if(i<0 || i>=rowNum) throw new IllegalArgumentException(" i must greater equal to 0 and small than n");
+		if(j<0 || j>=colNum) throw new IllegalArgumentException(" j must greater equal to 0 and small than m");
+	}
+
+	/**
+	 * Replaces {@code b} by L^{-1}*P*b.
+	 * @param b vector of length {@code rowNum()}, reduced modulo p
+	 * @param scratch buffer of length {@code rowNum()}
+	 */
+	void forwardSubstitution(int[] b , int[] scratch){
+		for(int i=0;i<rowNum;++i) scratch[i] = b[rowPermutation[i]];
+		for(int r=0;r<rank;++r){
+			long y = scratch[r];
+			if(y==0) continue;
+			int k = pivotColumns[r];
+			for(int t=r+1;t<rowNum;++t){
+				int l = lu[t*colNum+k];
+				if(l!=0) scratch[t] = (int)((scratch[t]+(p-l)*y)%p);
+			}
+		}
+		System.arraycopy(scratch, 0, b, 0, rowNum);
+	}
+
+	/**
+	 * Back substitution on the echelon form.
+	 * @param y right-hand side after {@link #forwardSubstitution}, or null for zero
+	 * @param freeVariable free variable set to one, or -1 for none
+	 * @param solution output vector of length {@code colNum()}
+	 */
+	void backSubstitution(int[] y , int freeVariable , int[] solution){
+		java.util.Arrays.fill(solution, 0);
+		if(freeVariable>=0) solution[freeVariable] = 1;
+		for(int r=rank-1;r>=0;--r){
+			int rowOffset = r*colNum , k = pivotColumns[r];
+			long f = (y==null?0:y[r]);
+			for(int j=k+1;j<colNum;++j){
+				if(solution[j]!=0) f = (f+(long)(p-lu[rowOffset+j])*solution[j])%p;
+			}
+			solution[k] = (int)(f*ModularMatrix.inverse(lu[rowOffset+k],p)%p);
+		}
+	}
+
+	/**
+	 * @param b vector
+	 * @return a particular solution of ax=b, or null if the system is inconsistent
+	 */
+	public int[] solve(int[] b){
+		if(b.length!=rowNum) throw new IllegalArgumentException("vector b with size" + b.length + " does not match row size " + rowNum);
+		int[] y = new int[rowNum];
+		for(int i=0;i<rowNum;++i){
+			int r = b[i]%p;
+			y[i] = (r<0?r+p:r);
+		}
+		forwardSubstitution(y,new int[rowNum]);
+		for(int r=rank;r<rowNum;++r){
+			if(y[r]!=0) return null;
+		}
+		int[] solution = new int[colNum];
+		backSubstitution(y,-1,solution);
+		return solution;
+	}
+
+	/**
+	 * @return list of vectors which form a basis for the solution space of ax=0
+	 */
+	public LinkedList<int[]> kernel(){
+		boolean[] isPivot = new boolean[colNum];
+		for(int r=0;r<rank;++r) isPivot[pivotColumns[r]] = true;
+		LinkedList<int[]> solutions = new LinkedList<int[]>();
+		for(int i=0;i<colNum;++i){
+			if(isPivot[i]) continue;
+			int[] solution = new int[colNum];
+			backSubstitution(null,i,solution);
+			solutions.add(solution);
+		}
+		return solutions;
+	}
+
+	/**
+	 * @return inverse of the eliminated matrix
+	 * @throws IllegalArgumentException if the matrix is singular
+	 */
+	public ModularMatrix inverse(){
+		if(isSingular()) throw new IllegalArgumentException("matrix is singlar");
+		int n = rowNum;
+		ModularMatrix inverse = new ModularMatrix(n,p);
+		int[] inv = inverse.data() , column = new int[n] , scratch = new int[n] , solution = new int[n];
+		for(int j=0;j<n;++j){
+			java.util.Arrays.fill(column, 0);
+			column[j] = 1;
+			forwardSubstitution(column,scratch);
+			backSubstitution(column,-1,solution);
+			for(int i=0;i<n;++i) inv[i*n+j] = solution[i];
+		}
+		return inverse;
+	}
+
+	public String toString(){
+		StringBuilder s = new StringBuilder();
+		for(int i=0;i<rowNum;++i){
+			for(int j=0;j<colNum;++j){
+				s.append(get(i,j)).append(' ');
+			}
+			s.append('\n');
+		}
+		return s.toString();
+	}
+
+	public static void main(String args[]){
+		ModularMatrix m = new ModularMatrix(6,17);
+		for(int i=0;i<6;++i){
+			for(int j=0;j<6;++j){
+				m.set(i, j, 2);
+			}
+		}
+		for(int i=0;i<5;++i){
+			m.set(i, i, i+5);
+		}
+		m.set(0, 0, 0);
+		m.set(1, 0, 0);
+
+		ModularGaussElimination g = new ModularGaussElimination(m);
+		System.out.println(m.toString());
+		System.out.println(g.toString());
+		System.out.println("rank: " + g.rank() + " det: " + g.det() + " check: " + m.toMatrix().det());
+		System.out.println(m.multRight(g.inverse()).toString());
+	}
+}
@@ -0,0 +1,647 @@
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Matrix over the prime field GF(p).
+ * The entries are kept as a flat row-major {@code int[]} with values in [0,p),
+ * so arithmetic never allocates {@link ModularNumber} objects.
+ * The API mirrors {@link Matrix} with {@code int} entries instead of {@link FieldElement}.
+ */
+public class ModularMatrix {
+	private final int[] mat;
+	private final int rowNum , colNum;
+	private final int p;
+
+	// Factorization of the current entries, dropped whenever an entry changes
+	private ModularGaussElimination gaussElimination;
+	private ModularMatrix inverse;
+
+	// Tiles of BLOCK_SIZE x BLOCK_SIZE ints (16KB) of each factor fit in L1/L2
+	private static final int BLOCK_SIZE = 64;
+	/**
+	 * Number of multiply-adds above which {@link #multRight(ModularMatrix)} runs in parallel.
+	 */
+	public static final long DEFAULT_PARALLEL_THRESHOLD = 1L<<21;
+	/**
+	 * Size at or below which {@link #multStrassen(ModularMatrix)} uses the tiled kernel.
+	 */
+	public static final int DEFAULT_STRASSEN_CROSSOVER = 512;
+
+	/**
+	 * Initializes a zero {@code n}x{@code m} matrix over GF({@code p}).
+	 * @param n number of rows
+	 * @param m number of columns
+	 * @param p prime modulus
+	 */
+	public ModularMatrix(int n , int m , int p){
+		if(n<=0) throw new IllegalArgumentException("n must be positive");
+		if(m<=0) throw new IllegalArgumentException("m must be positive");
+		if(p<2) throw new IllegalArgumentException("p must be a prime");
+		if((long)n*m>Integer.MAX_VALUE) throw new IllegalArgumentException("matrix is too large");
+		this.rowNum = n;
+		this.colNum = m;
+		this.p = p;
+		this.mat = new int[n*m];
+	}
+
+	public ModularMatrix(int n , int p){
+		this(n,n,p);
+	}
+
+	/**
+	 * Initializes a deep copy of {@code mat}.
+	 * @param mat the matrix to copy
+	 */
+	public ModularMatrix(ModularMatrix mat){
+		this.rowNum = mat.rowNum;
+		this.colNum = mat.colNum;
+		this.p = mat.p;
+		this.mat = mat.mat.clone();
+	}
+
+	/**
+	 * Initializes a primitive copy of {@code mat}.
+	 * @param mat matrix whose entries are {@link ModularNumber}s of the same characteristic
+	 * @throws IllegalArgumentException if the entries are not modular numbers
+	 */
+	public ModularMatrix(Matrix mat){
+		this(mat.rowNum(),mat.colNum(),mat.unitElement().characteristic());
+		for(int i=0;i<rowNum;++i){
+			for(int j=0;j<colNum;++j){
+				FieldElement f = mat.get(i, j);
+				if(!(f instanceof ModularNumber)) throw new IllegalArgumentException("Matrix entries must be modular numbers");
+				ModularNumber x = (ModularNumber) f;
+				if(x.characteristic()!=p) throw new IllegalArgumentException("Matrix entries must have the same characteristic");
+				this.mat[i*colNum+j] = reduce(x.n);
+			}
+		}
+	}
+
+	/**
+	 * @return object based copy of this matrix.
+	 */
+	public Matrix toMatrix(){
+		Matrix m = new Matrix(rowNum,colNum,new ModularNumber(0,p));
+		for(int i=0;i<rowNum;++i){
+			for(int j=0;j<colNum;++j){
+				m.set(i, j, new ModularNumber(mat[i*colNum+j],p));
+			}
+		}
+		return m;
+	}
+
+	public int rowNum(){
+		return this.rowNum;
+	}
+
+	public int colNum(){
+		return this.colNum;
+	}
+
+	public int characteristic(){
+		return this.p;
+	}
+
+	public boolean isSquare(){
+		return rowNum==colNum;
+	}
+
+	private void validateIndex(int i , int j){
+		if(i<0 || i>=rowNum) throw new IllegalArgumentException(" i must greater equal to 0 and small than n");
+		if(j<0 || j>=colNum) throw new IllegalArgumentException(" j must greater equal to 0 and small than m");
+	}
+
+	/**
+	 * Reduces {@code x} to its representative in [0,p).
+	 */
+	private int reduce(long x){
+		int r = (int)(x%p);
+		return (r<0?r+p:r);
+	}
+
+	public int get(int i , int j){
+		validateIndex(i, j);
+		return mat[i*colNum+j];
+	}
+
+	public void set(int i , int j , int value){
+		validateIndex(i, j);
+		invalidate();
+		mat[i*colNum+j] = reduce(value);
+	}
+
+	public void add(int i , int j , int value){
+		validateIndex(i, j);
+		invalidate();
+		mat[i*colNum+j] = reduce((long)mat[i*colNum+j]+reduce(value));
+	}
+
+	public void setToIdentity(){
+		if(!isSquare()) throw new IllegalArgumentException("Matrix must be a square matrix");
+		invalidate();
+		java.util.Arrays.fill(mat, 0);
+		for(int i=0;i<rowNum;++i){
+			mat[i*colNum+i] = 1;
+		}
+	}
+
+	public ModularMatrix add(ModularMatrix m){
+		if(m.rowNum!=rowNum) throw new IllegalArgumentException("Row size does not match");
+		if(m.colNum!=colNum) throw new IllegalArgumentException("Column size does not match");
+		if(m.p!=p) throw new IllegalArgumentException("Can't add matrices with different characteristic");
+		ModularMatrix addition = new ModularMatrix(rowNum,colNum,p);
+		for(int k=0;k<mat.length;++k){
+			int s = mat[k]+m.mat[k];
+			addition.mat[k] = (s>=p || s<0?(int)((long)mat[k]+m.mat[k]-p):s);
+		}
+		return addition;
+	}
+
+	/**
+	 * Computes the product with a tiled kernel. Products whose number of
+	 * multiply-adds exceeds {@link #DEFAULT_PARALLEL_THRESHOLD} are split into
+	 * tiles of the result and computed on the common {@link ForkJoinPool}.
+	 * @param m matrix with {@code colNum()} rows
+	 * @return the product {@code this*m}
+	 */
+	public ModularMatrix multRight(ModularMatrix m){
+		return multRight(m,DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Computes the product with a tiled kernel, in parallel on the common
+	 * {@link ForkJoinPool} once the number of multiply-adds exceeds {@code parallelThreshold}.
+	 * @param m matrix with {@code colNum()} rows
+	 * @param parallelThreshold nonnegative number of multiply-adds above which
+	 *        a product, or a part of it, is split over the pool
+	 * @return the product {@code this*m}
+	 */
+	public ModularMatrix multRight(ModularMatrix m , long parallelThreshold){
+		if(m.rowNum!=colNum) throw new IllegalArgumentException("Column size of left matrix must match row size of right matrix");
+		if(m.p!=p) throw new IllegalArgumentException("Can't multiply matrices with different characteristic");
+		if(parallelThreshold<0) throw new IllegalArgumentException("threshold must be nonnegative");
+		ModularMatrix product = new ModularMatrix(rowNum,m.colNum,p);
+		multiply(mat,0,colNum,m.mat,0,m.colNum,product.mat,0,m.colNum,rowNum,colNum,m.colNum,p,false,parallelThreshold);
+		return product;
+	}
+
+	/**
+	 * Computes the product of square matrices with the Strassen-Winograd recursion
+	 * (7 multiplications and 15 additions per level). Sizes at or below
+	 * {@link #DEFAULT_STRASSEN_CROSSOVER} use the tiled kernel of {@link #multRight}.
+	 * {@link Matrix#multRight} takes this path for square products above the crossover.
+	 * @param m square matrix of the same size
+	 * @return the product {@code this*m}
+	 */
+	public ModularMatrix multStrassen(ModularMatrix m){
+		return multStrassen(m,DEFAULT_STRASSEN_CROSSOVER);
+	}
+
+	/**
+	 * Strassen-Winograd product which recurses until the blocks are at most
+	 * {@code crossover} in size. Odd sizes are handled by padding with zeros
+	 * once at the top level.
+	 * @param m square matrix of the same size
+	 * @param crossover positive matrix size
+	 * @return the product {@code this*m}
+	 */
+	public ModularMatrix multStrassen(ModularMatrix m , int crossover){
+		if(!isSquare() || !m.isSquare() || m.rowNum!=rowNum) throw new IllegalArgumentException("Strassen multiplication requires square matrices of the same size");
+		if(m.p!=p) throw new IllegalArgumentException("Can't multiply matrices with different characteristic");
+		if(crossover<=0) throw new IllegalArgumentException("crossover must be positive");
+		int n = rowNum;
+		if(n<=crossover) return multRight(m);
+		// Pad so that halving reaches a size below the crossover without odd sizes on the way
+		int levels = 0 , base = n;
+		while(base>crossover){
+			base = (base+1)/2;
+			levels++;
+		}
+		int padded = base<<levels;
+		ModularMatrix product = new ModularMatrix(n,p);
+		if(padded==n){
+			strassen(mat,m.mat,product.mat,n,crossover,p);
+		}
+		else{
+			int[] a = new int[padded*padded] , b = new int[padded*padded] , c = new int[padded*padded];
+			for(int i=0;i<n;++i){
+				System.arraycopy(mat, i*n, a, i*padded, n);
+				System.arraycopy(m.mat, i*n, b, i*padded, n);
+			}
+			strassen(a,b,c,padded,crossover,p);
+			for(int i=0;i<n;++i){
+				System.arraycopy(c, i*padded, product.mat, i*n, n);
+			}
+		}
+		return product;
+	}
+
+	/**
+	 * Writes the product of the {@code n}x{@code n} arrays {@code a},{@code b} into {@code c}.
+	 */
+	private static void strassen(int[] a , int[] b , int[] c , int n , int crossover , int p){
+		if(n<=crossover || n%2!=0){
+			multiply(a,0,n,b,0,n,c,0,n,n,n,n,p);
+			return;
+		}
+		int h = n/2;
+		int[] a11 = quadrant(a,n,0,0) , a12 = quadrant(a,n,0,h) , a21 = quadrant(a,n,h,0) , a22 = quadrant(a,n,h,h);
+		int[] b11 = quadrant(b,n,0,0) , b12 = quadrant(b,n,0,h) , b21 = quadrant(b,n,h,0) , b22 = quadrant(b,n,h,h);
+		int[] s1 = sum(a21,a22,p) , s2 = difference(s1,a11,p) , s3 = difference(a11,a21,p) , s4 = difference(a12,s2,p);
+		int[] t1 = difference(b12,b11,p) , t2 = difference(b22,t1,p) , t3 = difference(b22,b12,p) , t4 = difference(t2,b21,p);
+		int[] p1 = new int[h*h] , p2 = new int[h*h] , p3 = new int[h*h] , p4 = new int[h*h];
+		int[] p5 = new int[h*h] , p6 = new int[h*h] , p7 = new int[h*h];
+		strassen(a11,b11,p1,h,crossover,p);
+		strassen(a12,b21,p2,h,crossover,p);
+		strassen(s4,b22,p3,h,crossover,p);
+		strassen(a22,t4,p4,h,crossover,p);
+		strassen(s1,t1,p5,h,crossover,p);
+		strassen(s2,t2,p6,h,crossover,p);
+		strassen(s3,t3,p7,h,crossover,p);
+		int[] u2 = sum(p1,p6,p) , u3 = sum(u2,p7,p) , u4 = sum(u2,p5,p);
+		setQuadrant(c,n,0,0,sum(p1,p2,p));
+		setQuadrant(c,n,0,h,sum(u4,p3,p));
+		setQuadrant(c,n,h,0,difference(u3,p4,p));
+		setQuadrant(c,n,h,h,sum(u3,p5,p));
+	}
+
+	private static int[] quadrant(int[] a , int n , int row , int col){
+		int h = n/2;
+		int[] q = new int[h*h];
+		for(int i=0;i<h;++i){
+			System.arraycopy(a, (row+i)*n+col, q, i*h, h);
+		}
+		return q;
+	}
+
+	private static void setQuadrant(int[] a , int n , int row , int col , int[] q){
+		int h = n/2;
+		for(int i=0;i<h;++i){
+			System.arraycopy(q, i*h, a, (row+i)*n+col, h);
+		}
+	}
+
+	private static int[] sum(int[] x , int[] y , int p){
+		int[] z = new int[x.length];
+		for(int i=0;i<x.length;++i){
+			long s = (long)x[i]+y[i];
+			z[i] = (int)(s>=p?s-p:s);
+		}
+		return z;
+	}
+
+	private static int[] difference(int[] x , int[] y , int p){
+		int[] z = new int[x.length];
+		for(int i=0;i<x.length;++i){
+			int d = x[i]-y[i];
+			z[i] = (d<0?d+p:d);
+		}
+		return z;
+	}
+
+	/**
+	 * Writes the product of the {@code n}x{@code k} block of {@code a} and the
+	 * {@code k}x{@code m} block of {@code b} into the {@code n}x{@code m} block of {@code c}.
+	 * Blocks are given by their offset and row length (leading dimension)
+	 * inside row-major arrays, and must not overlap {@code c}.
+	 */
+	static void multiply(int[] a , int aOffset , int lda , int[] b , int bOffset , int ldb , int[] c , int cOffset , int ldc , int n , int k , int m , int p){
+		multiply(a,aOffset,lda,b,bOffset,ldb,c,cOffset,ldc,n,k,m,p,false,DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Same as {@link #multiply} but subtracts the product from the block of {@code c}.
+	 */
+	static void multiplySubtract(int[] a , int aOffset , int lda , int[] b , int bOffset , int ldb , int[] c , int cOffset , int ldc , int n , int k , int m , int p){
+		multiply(a,aOffset,lda,b,bOffset,ldb,c,cOffset,ldc,n,k,m,p,true,DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	private static void multiply(int[] a , int aOffset , int lda , int[] b , int bOffset , int ldb , int[] c , int cOffset , int ldc , int n , int k , int m , int p , boolean subtract , long parallelThreshold){
+		MultiplyTask task = new MultiplyTask(a,aOffset,lda,b,bOffset,ldb,c,cOffset,ldc,k,p,subtract,parallelThreshold,0,n,0,m);
+		if((long)n*k*m<=parallelThreshold){
+			task.compute();
+		}
+		else{
+			ForkJoinPool.commonPool().invoke(task);
+		}
+	}
+
+	/**
+	 * Computes the rows [rowStart,rowEnd) and columns [colStart,colEnd) of a product.
+	 * Large regions are split in half along their longer side, small regions are
+	 * computed tile by tile so that the touched parts of both factors stay in cache.
+	 */
+	private static final class MultiplyTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		private final int[] a , b , c;
+		private final int aOffset , lda , bOffset , ldb , cOffset , ldc , k , p;
+		private final boolean subtract;
+		private final long parallelThreshold;
+		private final int rowStart , rowEnd , colStart , colEnd;
+
+		MultiplyTask(int[] a , int aOffset , int lda , int[] b , int bOffset , int ldb , int[] c , int cOffset , int ldc , int k , int p , boolean subtract , long parallelThreshold , int rowStart , int rowEnd , int colStart , int colEnd){
+			this.a = a;
+			this.aOffset = aOffset;
+			this.lda = lda;
+			this.b = b;
+			this.bOffset = bOffset;
+			this.ldb = ldb;
+			this.c = c;
+			this.cOffset = cOffset;
+			this.ldc = ldc;
+			this.k = k;
+			this.p = p;
+			this.subtract = subtract;
+			this.parallelThreshold = parallelThreshold;
+			this.rowStart = rowStart;
+			this.rowEnd = rowEnd;
+			this.colStart = colStart;
+			this.colEnd = colEnd;
+		}
+
+		protected void compute(){
+			int rows = rowEnd-rowStart , cols = colEnd-colStart;
+			if((long)rows*cols*k<=parallelThreshold || (rows<=BLOCK_SIZE && cols<=BLOCK_SIZE)){
+				multiplyTiles();
+				return;
+			}
+			if(rows>=cols){
+				int mid = rowStart+(rows/2+BLOCK_SIZE-1)/BLOCK_SIZE*BLOCK_SIZE;
+				if(mid>=rowEnd) mid = rowStart+rows/2;
+				invokeAll(new MultiplyTask(a,aOffset,lda,b,bOffset,ldb,c,cOffset,ldc,k,p,subtract,parallelThreshold,rowStart,mid,colStart,colEnd),
+						new MultiplyTask(a,aOffset,lda,b,bOffset,ldb,c,cOffset,ldc,k,p,subtract,parallelThreshold,mid,rowEnd,colStart,colEnd));
+			}
+			else{
+				int mid = colStart+(cols/2+BLOCK_SIZE-1)/BLOCK_SIZE*BLOCK_SIZE;
+				if(mid>=colEnd) mid = colStart+cols/2;
+				invokeAll(new MultiplyTask(a,aOffset,lda,b,bOffset,ldb,c,cOffset,ldc,k,p,subtract,parallelThreshold,rowStart,rowEnd,colStart,mid),
+						new MultiplyTask(a,aOffset,lda,b,bOffset,ldb,c,cOffset,ldc,k,p,subtract,parallelThreshold,rowStart,rowEnd,mid,colEnd));
+			}
+		}
+
+		private void multiplyTiles(){
+			long[] acc = new long[BLOCK_SIZE*BLOCK_SIZE];
+			// Products are below (p-1)^2, so several of them can be summed before reducing
+			long square = (long)(p-1)*(p-1);
+			long maxDelayed = (square==0?Long.MAX_VALUE:Long.MAX_VALUE/square-1);
+			if(maxDelayed<1) maxDelayed = 1;
+			for(int i0=rowStart;i0<rowEnd;i0+=BLOCK_SIZE){
+				int i1 = Math.min(i0+BLOCK_SIZE,rowEnd);
+				for(int j0=colStart;j0<colEnd;j0+=BLOCK_SIZE){
+					int j1 = Math.min(j0+BLOCK_SIZE,colEnd) , width = j1-j0;
+					java.util.Arrays.fill(acc, 0);
+					long delayed = 0;
+					for(int k0=0;k0<k;k0+=BLOCK_SIZE){
+						int k1 = Math.min(k0+BLOCK_SIZE,k);
+						int step = (int)Math.min(k1-k0,maxDelayed);
+						for(int kStart=k0;kStart<k1;kStart+=step){
+							int kEnd = Math.min(kStart+step,k1);
+							if(delayed+(kEnd-kStart)>maxDelayed){
+								for(int t=0;t<acc.length;++t) acc[t]%=p;
+								delayed = 0;
+							}
+							for(int i=i0;i<i1;++i){
+								int aRow = aOffset+i*lda , accRow = (i-i0)*BLOCK_SIZE;
+								for(int kk=kStart;kk<kEnd;++kk){
+									long x = a[aRow+kk];
+									if(x==0) continue;
+									int bRow = bOffset+kk*ldb+j0;
+									for(int j=0;j<width;++j){
+										acc[accRow+j] += x*b[bRow+j];
+									}
+								}
+							}
+							delayed += kEnd-kStart;
+						}
+					}
+					for(int i=i0;i<i1;++i){
+						int cRow = cOffset+i*ldc+j0 , accRow = (i-i0)*BLOCK_SIZE;
+						for(int j=0;j<width;++j){
+							int product = (int)(acc[accRow+j]%p);
+							if(subtract){
+								int d = c[cRow+j]-product;
+								c[cRow+j] = (d<0?d+p:d);
+							}
+							else{
+								c[cRow+j] = product;
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Modular inverse by the iterative extended Euclidean algorithm.
+	 * @param a nonzero residue in [0,p)
+	 * @param p prime modulus
+	 * @return inverse of {@code a} modulo {@code p}
+	 */
+	static int inverse(int a , int p){
+		if(a==0) throw new ArithmeticException("zero has no inverse");
+		long r0 = p , r1 = a , t0 = 0 , t1 = 1;
+		while(r1!=0){
+			long q = r0/r1 , temp = r0-q*r1;
+			r0 = r1;
+			r1 = temp;
+			temp = t0-q*t1;
+			t0 = t1;
+			t1 = temp;
+		}
+		if(r0!=1) throw new IllegalArgumentException("Cannot compute inverse if n,m are not coprime");
+		return (int)(t0<0?t0+p:t0);
+	}
+
+	/**
+	 * @return the row-major storage of this matrix, shared with the caller.
+	 */
+	int[] data(){
+		return mat;
+	}
+
+	/**
+	 * Drops the cached factorizations. Called by every method that changes an entry.
+	 */
+	void invalidate(){
+		gaussElimination = null;
+		inverse = null;
+	}
+
+	/**
+	 * @return cached factorization P*A=L*U in echelon form, shared by
+	 *         {@link #rank()}, {@link #det()}, {@link #inverse()} and the solvers.
+	 */
+	ModularGaussElimination gaussElimination(){
+		if(gaussElimination==null) gaussElimination = new ModularGaussElimination(this);
+		return gaussElimination;
+	}
+
+	public int rank(){
+		return gaussElimination().rank();
+	}
+
+	public boolean isFullRank(){
+		return rank()==(rowNum<colNum?rowNum:colNum);
+	}
+
+	public boolean isSingular(){
+		if(!isSquare()) throw new IllegalArgumentException("Matrix must be a square matrix");
+		return !isFullRank();
+	}
+
+	public int det(){
+		if(!isSquare()) throw new IllegalArgumentException("Matrix must be a square matrix");
+		return gaussElimination().det();
+	}
+
+	public ModularMatrix inverse(){
+		if(!isSquare()) throw new IllegalArgumentException("Matrix must be a square matrix");
+		if(inverse==null) inverse = gaussElimination().inverse();
+		return new ModularMatrix(inverse);
+	}
+
+	/**
+	 * Solve the linear equation ax=0
+	 *
+	 * @param a matrix
+	 * @return list of vectors which form a basis for the solution space
+	 */
+	public static LinkedList<int[]> solve(ModularMatrix a){
+		return a.gaussElimination().kernel();
+	}
+
+	/**
+	 * Solve the linear equation ax=b
+	 *
+	 * @param a matrix
+	 * @param b vector
+	 * @return a particular solution, or null if the system is inconsistent
+	 */
+	public static int[] solve(ModularMatrix a , int[] b){
+		if(a.rowNum!=b.length) throw new IllegalArgumentException("vector b with size" + b.length + " does not match row size of a " + a.rowNum);
+		return a.gaussElimination().solve(b);
+	}
+
+	/**
+	 * Solve ax=b for many right-hand sides against one cached factorization.
+	 * Each right-hand side costs O(n^2).
+	 *
+	 * @param a matrix
+	 * @param rhs right-hand sides
+	 * @return a particular solution for each right-hand side, in order,
+	 *         with null for the right-hand sides that have no solution
+	 */
+	public static LinkedList<int[]> solveBatch(ModularMatrix a , Iterable<int[]> rhs){
+		LinkedList<int[]> solutions = new LinkedList<int[]>();
+		ModularGaussElimination g = a.gaussElimination();
+		for(int[] b : rhs){
+			if(b.length!=a.rowNum) throw new IllegalArgumentException("vector b with size" + b.length + " does not match row size of a " + a.rowNum);
+			solutions.add(g.solve(b));
+		}
+		return solutions;
+	}
+
+	/**
+	 * Solve ax=b for every column b of {@code rhs} against one cached factorization.
+	 *
+	 * @param a matrix
+	 * @param rhs matrix whose columns are the right-hand sides
+	 * @return matrix x with ax=rhs
+	 * @throws IllegalArgumentException if some column has no solution
+	 */
+	public static ModularMatrix solveBatch(ModularMatrix a , ModularMatrix rhs){
+		if(a.rowNum!=rhs.rowNum) throw new IllegalArgumentException("Row size of rhs " + rhs.rowNum + " does not match row size of a " + a.rowNum);
+		if(a.p!=rhs.p) throw new IllegalArgumentException("Can't solve with different characteristic");
+		ModularMatrix x = new ModularMatrix(a.colNum,rhs.colNum,a.p);
+		int[] b = new int[a.rowNum];
+		ModularGaussElimination g = a.gaussElimination();
+		int[] scratch = new int[a.rowNum] , solution = new int[a.colNum];
+		for(int j=0;j<rhs.colNum;++j){
+			for(int i=0;i<b.length;++i) b[i] = rhs.mat[i*rhs.colNum+j];
+			g.forwardSubstitution(b,scratch);
+			for(int r=g.rank();r<b.length;++r){
+				if(b[r]!=0) throw new IllegalArgumentException("column " + j + " of rhs has no solution");
+			}
+			g.backSubstitution(b,-1,solution);
+			for(int i=0;i<solution.length;++i) x.mat[i*x.colNum+j] = solution[i];
+		}
+		return x;
+	}
+
+	public String toString(){
+		StringBuilder s = new StringBuilder();
+		for(int i=0;i<rowNum;++i){
+			for(int j=0;j<colNum;++j){
+				s.append(mat[i*colNum+j]).append(' ');
+			}
+			s.append('\n');
+		}
+		return s.toString();
+	}
+
+	private static ModularMatrix randomMatrix(int n , int p){
+		ModularMatrix m = new ModularMatrix(n,p);
+		for(int k=0;k<m.mat.length;++k){
+			m.mat[k] = StdRandom.uniform(p);
+		}
+		return m;
+	}
+
+	/**
+	 * The {@link FieldElement} based triple loop, which {@link Matrix#multRight}
+	 * no longer uses for modular matrices.
+	 */
+	private static Matrix objectMultiply(Matrix a , Matrix b){
+		Matrix product = new Matrix(a.rowNum(),b.colNum(),a.zeroElement());
+		for(int i=0;i<a.rowNum();++i){
+			for(int j=0;j<b.colNum();++j){
+				FieldElement sum = a.zeroElement();
+				for(int k=0;k<a.colNum();++k){
+					sum.addElement(a.get(i, k).mult(b.get(k, j)));
+				}
+				product.set(i, j, sum);
+			}
+		}
+		return product;
+	}
+
+	/**
+	 * Benchmarks the primitive path against the {@link FieldElement} based {@link Matrix}.
+	 * The object based path is only timed up to {@code args[1]} (default 512),
+	 * since it becomes impractically slow for larger sizes.
+	 *
+	 * @param args optional maximal size and maximal size for the object based path
+	 */
+	public static void main(String[] args){
+		int p = 32003;
+		int maxSize = (args.length>0?Integer.parseInt(args[0]):2048);
+		int maxObjectSize = (args.length>1?Integer.parseInt(args[1]):512);
+		System.out.println("n\tmultRight(int)\tmultStrassen(int)\tdet(int)\tmultRight(obj)\tdet(obj)");
+		for(int n=64;n<=maxSize;n*=2){
+			ModularMatrix a = randomMatrix(n,p) , b = randomMatrix(n,p);
+			long start = System.nanoTime();
+			ModularMatrix c = a.multRight(b);
+			long multTime = System.nanoTime()-start;
+			start = System.nanoTime();
+			ModularMatrix strassen = a.multStrassen(b);
+			long strassenTime = System.nanoTime()-start;
+			start = System.nanoTime();
+			int det = a.det();
+			long detTime = System.nanoTime()-start;
+			String line = n + "\t" + multTime/1000000 + "ms\t" + strassenTime/1000000 + "ms\t" + detTime/1000000 + "ms";
+			if(n<=maxObjectSize){
+				Matrix objA = a.toMatrix() , objB = b.toMatrix();
+				start = System.nanoTime();
+				objectMultiply(objA,objB);
+				long objMultTime = System.nanoTime()-start;
+				start = System.nanoTime();
+				new GaussElimination(objA).det();
+				long objDetTime = System.nanoTime()-start;
+				line += "\t" + objMultTime/1000000 + "ms\t" + objDetTime/1000000 + "ms";
+			}
+			System.out.println(line + "\t(checksum " + (c.mat[0]^strassen.mat[0]^det) + ")");
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/**
+ * Multi-source breadth first search (MS-BFS, Then et al.).
+ * Up to 64 traversals run at once: bit i of the word of a vertex belongs to
+ * the i-th source of the batch. One sweep over the frontier vertices and their
+ * edges advances all of them by a level, so an edge is read once per batch
+ * instead of once per source.
+ * <p>
+ * Results are available as a distance matrix, streamed per reached
+ * (source, vertex) pair, or folded into eccentricities and closeness.
+ */
+public class MultiSourceBFS {
+	private static final int INFINITY = Integer.MAX_VALUE;
+	private static final int BATCH_SIZE = 64;
+
+	// this class cannot be instantiated
+	private MultiSourceBFS() { }
+
+	/**
+	 * Receives the distance of every vertex reachable from a source.
+	 */
+	public interface DistanceConsumer {
+		/**
+		 * @param sourceIndex index of the source in the sources array
+		 * @param vertex reached vertex
+		 * @param distance hop distance from the source to the vertex
+		 */
+		void accept(int sourceIndex , int vertex , int distance);
+	}
+
+	/**
+	 * Calls {@code consumer} once for every source and every vertex reachable
+	 * from it, the source itself included with distance 0. The pairs of a batch
+	 * of 64 sources are reported level by level. No memory proportional to the
+	 * number of sources is kept.
+	 * @param G the graph
+	 * @param sources source vertices
+	 * @param consumer receiver of the distances
+	 */
+	public static void forEachDistance(GraphView G , int[] sources , DistanceConsumer consumer){
+		int n = G.V();
+		for(int s : sources) validateVertex(G,s);
+		long[] seen = new long[n] , visit = new long[n] , next = new long[n];
+		for(int from=0;from<sources.length;from+=BATCH_SIZE){
+			int count = Math.min(BATCH_SIZE,sources.length-from);
+			sweep(G,sources,from,count,seen,visit,next,consumer);
+		}
+	}
+
+	/**
+	 * Runs one batch of at most 64 sources. The arrays are cleared here.
+	 */
+	private static void sweep(GraphView G , int[] sources , int from , int count , long[] seen , long[] visit , long[] next , DistanceConsumer consumer){
+		int n = G.V();
+		java.util.Arrays.fill(seen, 0L);
+		java.util.Arrays.fill(visit, 0L);
+		java.util.Arrays.fill(next, 0L);
+		for(int i=0;i<count;++i){
+			int s = sources[from+i];
+			seen[s] |= 1L<<i;
+			visit[s] |= 1L<<i;
+			consumer.accept(from+i, s, 0);
+		}
+		boolean active = true;
+		for(int level=1;active;++level){
+			// every traversal in visit[u] moves along the edges of u
+			for(int u=0;u<n;++u){
+				long bits = visit[u];
+				if(bits==0) continue;
+				int degree = G.degree(u);
+				for(int k=0;k<degree;++k){
+					next[G.neighbor(u, k)] |= bits;
+				}
+			}
+			active = false;
+			for(int v=0;v<n;++v){
+				long bits = next[v]&~seen[v];
+				next[v] = 0;
+				visit[v] = bits;
+				if(bits==0) continue;
+				active = true;
+				seen[v] |= bits;
+				for(;bits!=0;bits&=bits-1){
+					consumer.accept(from+Long.numberOfTrailingZeros(bits), v, level);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param G the graph
+	 * @param sources source vertices
+	 * @return matrix whose row i holds the distances from {@code sources[i]},
+	 *         {@code Integer.MAX_VALUE} for unreachable vertices
+	 */
+	public static int[][] distances(GraphView G , int[] sources){
+		final int[][] dist = new int[sources.length][G.V()];
+		for(int[] row : dist) java.util.Arrays.fill(row, INFINITY);
+		forEachDistance(G,sources,new DistanceConsumer(){
+			public void accept(int sourceIndex , int vertex , int distance){
+				dist[sourceIndex][vertex] = distance;
+			}
+		});
+		return dist;
+	}
+
+	/**
+	 * @param G the graph
+	 * @param sources source vertices
+	 * @return the largest distance from each source to a vertex reachable from it
+	 */
+	public static int[] eccentricities(GraphView G , int[] sources){
+		final int[] eccentricity = new int[sources.length];
+		forEachDistance(G,sources,new DistanceConsumer(){
+			public void accept(int sourceIndex , int vertex , int distance){
+				// distances are reported in nondecreasing order
+				eccentricity[sourceIndex] = distance;
+			}
+		});
+		return eccentricity;
+	}
+
+	/**
+	 * Closeness of each source: (r-1)/d where r is the number of vertices
+	 * reachable from it, the source included, and d is the sum of their distances.
+	 * @param G the graph
+	 * @param sources source vertices
+	 * @return closeness of every source, 0 if no other vertex is reachable
+	 */
+	public static double[] closeness(GraphView G , int[] sources){
+		final long[] sum = new long[sources.length];
+		final int[] reached = new int[sources.length];
+		forEachDistance(G,sources,new DistanceConsumer(){
+			public void accept(int sourceIndex , int vertex , int distance){
+				sum[sourceIndex] += distance;
+				reached[sourceIndex]++;
+			}
+		});
+		double[] closeness = new double[sources.length];
+		for(int i=0;i<sources.length;++i){
+			closeness[i] = (sum[i]==0?0:(reached[i]-1)/(double)sum[i]);
+		}
+		return closeness;
+	}
+
+	private static void validateVertex(GraphView G , int i){
+		if(i < 0) throw new IllegalArgumentException("Vertex: " + i + " is negative.");
+		if(i > G.V()-1) throw new IllegalArgumentException("Vertex: " + i + " is larger than |V|=" + G.V() +".");
+	}
+
+	/**
+	 * Unit tests the {@code MultiSourceBFS} library.
+	 *
+	 * @param args the command-line arguments
+	 */
+	public static void main(String[] args){
+		Graph G = GraphGenerator.randomGraph(500, 0.01);
+		int[] sources = new int[G.V()];
+		for(int i=0;i<sources.length;++i) sources[i] = i;
+		long start = System.nanoTime();
+		int[][] dist = distances(G, sources);
+		System.out.println("MS-BFS: " + (System.nanoTime()-start)/1000000 + "ms");
+		boolean same = true;
+		start = System.nanoTime();
+		for(int s=0;s<G.V();++s){
+			BFS b = new BFS(G, s);
+			for(int v=0;v<G.V();++v){
+				if(b.dist(v)!=dist[s][v]) same = false;
+			}
+		}
+		System.out.println("BFS per source: " + (System.nanoTime()-start)/1000000 + "ms");
+		System.out.println("Distances check: " + (same?"Ok!":"False!"));
+	}
+}
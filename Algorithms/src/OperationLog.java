@@ -0,0 +1,147 @@
+import java.util.LinkedList;
+
+/**
+ * Compact log of elementary row operations.
+ * Every operation is packed as three ints (type, i, j) and one scale slot
+ * instead of an {@link ElementaryMatrix} object. The list of elementary
+ * matrices is only built when asked for, and the log can be replayed
+ * directly on a matrix.
+ */
+class OperationLog {
+	private static final ElementaryMatrix.Type[] TYPES = ElementaryMatrix.Type.values();
+	private int[] ops;
+	private FieldElement[] scales;
+	private int size;
+	private final int matrixSize;
+	private final FieldElement unitElement;
+
+	/**
+	 * @param matrixSize size of the elementary matrices
+	 * @param unitElement unit element of the field
+	 */
+	OperationLog(int matrixSize , FieldElement unitElement){
+		this.ops = new int[3*16];
+		this.scales = new FieldElement[16];
+		this.size = 0;
+		this.matrixSize = matrixSize;
+		this.unitElement = unitElement;
+	}
+
+	/**
+	 * Initializes a copy of {@code log} which can be extended independently.
+	 */
+	OperationLog(OperationLog log){
+		this.ops = log.ops.clone();
+		this.scales = log.scales.clone();
+		this.size = log.size;
+		this.matrixSize = log.matrixSize;
+		this.unitElement = log.unitElement;
+	}
+
+	private void add(ElementaryMatrix.Type type , int i , int j , FieldElement scale){
+		if(size==scales.length){
+			ops = java.util.Arrays.copyOf(ops, 6*size);
+			scales = java.util.Arrays.copyOf(scales, 2*size);
+		}
+		ops[3*size] = type.ordinal();
+		ops[3*size+1] = i;
+		ops[3*size+2] = j;
+		scales[size] = scale;
+		size++;
+	}
+
+	/**
+	 * Switches row i with row j.
+	 */
+	void addSwitch(int i , int j){
+		add(ElementaryMatrix.Type.ROW_SWITCH,i,j,null);
+	}
+
+	/**
+	 * Adds scale times row i to row j.
+	 */
+	void addAddition(int i , int j , FieldElement scale){
+		add(ElementaryMatrix.Type.ROW_ADDITION,i,j,scale);
+	}
+
+	/**
+	 * Multiplies row i by scale.
+	 */
+	void addScaling(int i , FieldElement scale){
+		add(ElementaryMatrix.Type.ROW_SCALING,i,-1,scale);
+	}
+
+	int size(){
+		return size;
+	}
+
+	/**
+	 * Applies the logged operations, in order, to {@code m}.
+	 */
+	void replay(Matrix m){
+		for(int t=0;t<size;++t){
+			int i = ops[3*t+1] , j = ops[3*t+2];
+			switch(TYPES[ops[3*t]]){
+			case ROW_SWITCH:
+				m.switchRows(i, j);
+				break;
+			case ROW_ADDITION:
+				m.addRowMultiple(i, j, scales[t]);
+				break;
+			case ROW_SCALING:
+				m.scaleRow(i, scales[t]);
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Applies the logged operations, in order, to the column vector {@code v}.
+	 */
+	void replay(FieldElement[] v){
+		for(int t=0;t<size;++t){
+			int i = ops[3*t+1] , j = ops[3*t+2];
+			switch(TYPES[ops[3*t]]){
+			case ROW_SWITCH:
+				FieldElement temp = v[i];
+				v[i] = v[j];
+				v[j] = temp;
+				break;
+			case ROW_ADDITION:
+				v[j] = v[i].mult(scales[t]).add(v[j]);
+				break;
+			case ROW_SCALING:
+				v[i] = v[i].mult(scales[t]);
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return the logged operations as elementary matrices.
+	 */
+	LinkedList<ElementaryMatrix> toList(){
+		LinkedList<ElementaryMatrix> operations = new LinkedList<ElementaryMatrix>();
+		for(int t=0;t<size;++t){
+			int i = ops[3*t+1] , j = ops[3*t+2];
+			switch(TYPES[ops[3*t]]){
+			case ROW_SWITCH:
+				operations.add(new ElementaryMatrix(i, j, matrixSize, unitElement));
+				break;
+			case ROW_ADDITION:
+				operations.add(new ElementaryMatrix(i, j, matrixSize, scales[t], unitElement));
+				break;
+			case ROW_SCALING:
+				operations.add(new ElementaryMatrix(i, matrixSize, scales[t], unitElement));
+				break;
+			default:
+				break;
+			}
+		}
+		return operations;
+	}
+}
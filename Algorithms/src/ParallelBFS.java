@@ -0,0 +1,195 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Parallel level-synchronous breadth first search.
+ * Each frontier is split into chunks which are expanded on a ForkJoin pool.
+ * A vertex is claimed by the one task which moves its distance from infinity
+ * to the current level with a compare-and-set; that task records the parent
+ * and appends the vertex to its own buffer. The buffers are then concatenated
+ * into the next frontier.
+ * <p>
+ * The distances are the same as those of {@link BFS}; the parents may differ
+ * among vertices of the previous level.
+ */
+public class ParallelBFS {
+	private static final int INFINITY = Integer.MAX_VALUE;
+	private static final int NO_PARENT = -1;
+	// Frontiers smaller than this are expanded serially
+	private static final int MIN_PARALLEL_FRONTIER = 1024;
+	private static final int MIN_CHUNK = 64;
+	private final GraphView G;
+	private final int source;
+	private final AtomicIntegerArray dist;
+	private final int[] parent;
+
+	/**
+	 * Computes the distances from {@code source} on the common ForkJoin pool.
+	 * @param G the graph, which must not change during the search
+	 * @param source the source vertex
+	 * @throws IllegalArgumentException unless {@code 0 <= s < V}
+	 */
+	public ParallelBFS(GraphView G , int source){
+		this(G,source,ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param G the graph, which must not change during the search
+	 * @param source the source vertex
+	 * @param pool pool expanding the frontiers
+	 * @throws IllegalArgumentException unless {@code 0 <= s < V}
+	 */
+	public ParallelBFS(GraphView G , int source , ForkJoinPool pool){
+		if(source<0 || source>G.V()-1) throw new IllegalArgumentException("source must be a vertex of the graph.");
+		this.G = G;
+		this.source = source;
+		this.dist = new AtomicIntegerArray(G.V());
+		this.parent = new int[G.V()];
+		bfs(pool);
+	}
+
+	private void bfs(ForkJoinPool pool){
+		int n = G.V();
+		for(int i=0;i<n;++i){
+			dist.set(i, INFINITY);
+			parent[i] = NO_PARENT;
+		}
+		int[] current = new int[n] , next = new int[n];
+		int currentSize = 1 , level = 0;
+		current[0] = source;
+		dist.set(source, 0);
+		int parallelism = pool.getParallelism();
+		while(currentSize>0){
+			level++;
+			int nextSize = 0;
+			if(currentSize<MIN_PARALLEL_FRONTIER || parallelism==1){
+				Expand task = new Expand(current,0,currentSize,level);
+				task.compute();
+				System.arraycopy(task.found, 0, next, 0, task.size);
+				nextSize = task.size;
+			}
+			else{
+				int chunk = Math.max(MIN_CHUNK, currentSize/(8*parallelism));
+				final Expand[] tasks = new Expand[(currentSize+chunk-1)/chunk];
+				for(int t=0;t<tasks.length;++t){
+					tasks[t] = new Expand(current,t*chunk,Math.min(currentSize,(t+1)*chunk),level);
+				}
+				pool.invoke(new RecursiveAction(){
+					private static final long serialVersionUID = 1L;
+
+					protected void compute(){
+						ForkJoinTask.invokeAll(tasks);
+					}
+				});
+				for(Expand task : tasks){
+					System.arraycopy(task.found, 0, next, nextSize, task.size);
+					nextSize += task.size;
+				}
+			}
+			int[] temp = current;
+			current = next;
+			next = temp;
+			currentSize = nextSize;
+		}
+	}
+
+	/**
+	 * Expands frontier[from,to) into a private buffer of newly claimed vertices.
+	 */
+	private final class Expand extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] frontier;
+		private final int from , to , level;
+		int[] found;
+		int size;
+
+		Expand(int[] frontier , int from , int to , int level){
+			this.frontier = frontier;
+			this.from = from;
+			this.to = to;
+			this.level = level;
+			this.found = new int[Math.max(16,to-from)];
+		}
+
+		protected void compute(){
+			for(int k=from;k<to;++k){
+				int u = frontier[k];
+				int degree = G.degree(u);
+				for(int i=0;i<degree;++i){
+					int v = G.neighbor(u, i);
+					if(dist.get(v)==INFINITY && dist.compareAndSet(v, INFINITY, level)){
+						parent[v] = u;
+						if(size==found.length) found = java.util.Arrays.copyOf(found, 2*size);
+						found[size++] = v;
+					}
+				}
+			}
+		}
+	}
+
+	private void validateVertex(int i){
+		if(i < 0) throw new IllegalArgumentException("Vertex: " + i + " is negative.");
+		if(i > G.V()-1) throw new IllegalArgumentException("Vertex: " + i + " is larger than |V|=" + G.V() +".");
+	}
+
+	public int getSource(){
+		return source;
+	}
+
+	public int dist(int target){
+		validateVertex(target);
+		return dist.get(target);
+	}
+
+	public boolean isConnected(int target){
+		validateVertex(target);
+		return dist.get(target)!=INFINITY;
+	}
+
+	/**
+	 * @return parent of {@code target} in the BFS tree, or -1 for the source and unreached vertices
+	 */
+	public int parent(int target){
+		validateVertex(target);
+		return parent[target];
+	}
+
+	/**
+	 * @return copy of the distances, {@code Integer.MAX_VALUE} for unreached vertices
+	 */
+	public int[] distances(){
+		int[] copy = new int[dist.length()];
+		for(int i=0;i<copy.length;++i) copy[i] = dist.get(i);
+		return copy;
+	}
+
+	/**
+	 * @return copy of the BFS tree parents
+	 */
+	public int[] parents(){
+		return parent.clone();
+	}
+
+	/**
+	 * Unit tests the {@code ParallelBFS} data type.
+	 *
+	 * @param args the command-line arguments
+	 */
+	public static void main(String[] args){
+		int V = (args.length>0?Integer.parseInt(args[0]):200000);
+		CSRDigraph G = new CSRDigraph(GraphGenerator.randomSimpleGraph(V, 8*V));
+		long start = System.nanoTime();
+		ParallelBFS p = new ParallelBFS(G, 0);
+		System.out.println("Parallel: " + (System.nanoTime()-start)/1000000 + "ms");
+		start = System.nanoTime();
+		BFS b = new BFS(G, 0);
+		System.out.println("Serial: " + (System.nanoTime()-start)/1000000 + "ms");
+		boolean same = true;
+		for(int v=0;v<V;++v){
+			if(p.dist(v)!=b.dist(v)) same = false;
+		}
+		System.out.println("Distances check: " + (same?"Ok!":"False!"));
+	}
+}
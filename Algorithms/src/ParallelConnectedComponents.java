@@ -0,0 +1,555 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Parallel strongly connected components by forward-backward decomposition
+ * (Fleischer, Hendrickson and Pinar) with trimming (McLendon et al.).
+ * Every vertex carries the color of the partition it belongs to; an SCC never
+ * crosses two partitions. A partition is first trimmed: vertices without an
+ * in-edge or an out-edge inside it are singleton components, and removing them
+ * may expose more. Then the vertices reachable from a random pivot (forward,
+ * along out-edges) and reaching it (backward, along in-edges) are found with
+ * parallel level-synchronous searches claiming vertices by compare-and-set of
+ * their color. Their intersection is the component of the pivot, and the three
+ * remaining partitions (forward only, backward only, neither) are decomposed
+ * in parallel. The last one is first split into its weakly connected pieces,
+ * so that many small components left next to each other do not cost a pivot
+ * each. Small partitions, and groups of small pieces, are finished with a
+ * serial Tarjan search.
+ * <p>
+ * Every pivot costs a scan of its partition, so a partition where pivots keep
+ * removing few vertices would take quadratic time. This happens when many
+ * small components are linked into one weakly connected piece by edges that
+ * reach little. Such a partition is finished with Tarjan's search once its
+ * task has scanned WORK_FACTOR times its size. The forward and backward
+ * partitions of the pivots tried until then are still decomposed in parallel.
+ * <p>
+ * This fits graphs with one giant component and many trivial ones: trimming
+ * removes the trivial ones in linear time and a random pivot then almost
+ * surely falls in the giant component. The partition into components is the
+ * same as that of {@link ConnectedComponents}; the ids are assigned in no
+ * particular order.
+ */
+public class ParallelConnectedComponents {
+	private static final int DONE = -1;
+	private static final int NONE = -2;
+	private static final int UNVISITED = -1;
+	// Partitions smaller than this are solved with Tarjan's algorithm
+	private static final int SERIAL_THRESHOLD = 4096;
+	// A task stops pivoting once it has scanned WORK_FACTOR times its partition
+	private static final int WORK_FACTOR = 4;
+	// Frontiers and member lists smaller than this are processed serially
+	private static final int MIN_PARALLEL = 1024;
+	private static final int MIN_CHUNK = 64;
+	private final GraphView G;
+	private final int parallelism;
+	private final AtomicIntegerArray color;
+	private final AtomicInteger colors = new AtomicInteger(1);
+	private final AtomicInteger components = new AtomicInteger();
+	private final int[] connectedComponent;
+	// Per-vertex scratch; partitions are disjoint so tasks never share an entry
+	private final int[] inCount , outCount , index , low;
+
+	/**
+	 * Computes the components of {@code G} on the common ForkJoin pool.
+	 * @param G the graph, which must not change during the computation
+	 */
+	public ParallelConnectedComponents(GraphView G){
+		this(G,ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param G the graph, which must not change during the computation
+	 * @param pool pool running the decomposition
+	 */
+	public ParallelConnectedComponents(GraphView G , ForkJoinPool pool){
+		int n = G.V();
+		this.G = G;
+		this.parallelism = pool.getParallelism();
+		this.color = new AtomicIntegerArray(n);
+		this.connectedComponent = new int[n];
+		this.inCount = new int[n];
+		this.outCount = new int[n];
+		this.index = new int[n];
+		this.low = new int[n];
+		int[] all = new int[n];
+		for(int v=0;v<n;++v) all[v] = v;
+		pool.invoke(new Decompose(all,0));
+	}
+
+	/**
+	 * Finds the components of the vertices of color {@code c}.
+	 * The forward-only and backward-only partitions left by a pivot are forked.
+	 * The remainder is split into weakly connected pieces: pieces smaller than
+	 * SERIAL_THRESHOLD are packed into groups forked to Tarjan's search, larger
+	 * ones are forked as partitions of their own, except the largest, which is
+	 * decomposed by the same task in a loop, until the work budget is spent.
+	 */
+	private final class Decompose extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private int[] members;
+		private final int c;
+
+		Decompose(int[] members , int c){
+			this.members = members;
+			this.c = c;
+		}
+
+		protected void compute(){
+			int[] remaining = members;
+			members = null;
+			java.util.ArrayList<Decompose> forked = new java.util.ArrayList<Decompose>();
+			long work = 0 , budget = (long)WORK_FACTOR*remaining.length;
+			while(true){
+				if(remaining.length>=SERIAL_THRESHOLD) remaining = trim(remaining,c);
+				work += remaining.length;
+				if(remaining.length<SERIAL_THRESHOLD || work>budget){
+					tarjan(remaining,c);
+					break;
+				}
+				int pivot = remaining[ThreadLocalRandom.current().nextInt(remaining.length)];
+				int forward = colors.getAndIncrement();
+				int both = colors.getAndIncrement();
+				int backward = colors.getAndIncrement();
+				color.set(pivot, forward);
+				int[] reached = reach(pivot,false,c,forward,NONE,NONE);
+				color.set(pivot, both);
+				int[] reaching = reach(pivot,true,forward,both,c,backward);
+
+				int id = components.getAndIncrement();
+				for(int v : reaching){
+					if(color.get(v)==both){
+						connectedComponent[v] = id;
+						color.set(v, DONE);
+					}
+				}
+				fork(forked,select(reached,forward),forward);
+				fork(forked,select(reaching,backward),backward);
+				remaining = split(select(remaining,c),forked);
+			}
+			for(int i=forked.size()-1;i>=0;--i) forked.get(i).join();
+		}
+
+		/**
+		 * Splits {@code members}, of color c, into weakly connected pieces and
+		 * forks all of them but the largest one, under new colors.
+		 * @return the largest piece, which keeps color c, or an empty array if
+		 *         it is smaller than SERIAL_THRESHOLD and was forked as well
+		 */
+		private int[] split(int[] members , java.util.ArrayList<Decompose> forked){
+			// pieces are laid out one after the other in breadth-first order,
+			// piece k being order[starts[k]..starts[k+1])
+			int[] order = new int[members.length] , starts = new int[16];
+			int pieces = 0 , size = 0;
+			for(int v : members) index[v] = UNVISITED;
+			for(int root : members){
+				if(index[root]!=UNVISITED) continue;
+				if(pieces+1==starts.length) starts = java.util.Arrays.copyOf(starts, 2*starts.length);
+				starts[pieces++] = size;
+				index[root] = 0;
+				order[size++] = root;
+				for(int k=starts[pieces-1];k<size;++k){
+					int u = order[k];
+					int degree = G.degree(u);
+					for(int i=0;i<degree;++i){
+						int w = G.neighbor(u, i);
+						if(index[w]==UNVISITED && color.get(w)==c){
+							index[w] = 0;
+							order[size++] = w;
+						}
+					}
+					int inDegree = G.inDegree(u);
+					for(int i=0;i<inDegree;++i){
+						int w = G.inNeighbor(u, i);
+						if(index[w]==UNVISITED && color.get(w)==c){
+							index[w] = 0;
+							order[size++] = w;
+						}
+					}
+				}
+			}
+			starts[pieces] = size;
+			int largest = -1;
+			for(int k=0;k<pieces;++k){
+				int length = starts[k+1]-starts[k];
+				if(length>=SERIAL_THRESHOLD && (largest<0 || length>starts[largest+1]-starts[largest])) largest = k;
+			}
+			int[] group = new int[Math.min(size,SERIAL_THRESHOLD)];
+			int groupSize = 0;
+			for(int k=0;k<pieces;++k){
+				int length = starts[k+1]-starts[k];
+				if(k==largest) continue;
+				if(length>=SERIAL_THRESHOLD){
+					fork(forked,java.util.Arrays.copyOfRange(order, starts[k], starts[k+1]));
+					continue;
+				}
+				if(groupSize+length>=SERIAL_THRESHOLD){
+					fork(forked,java.util.Arrays.copyOf(group, groupSize));
+					groupSize = 0;
+				}
+				System.arraycopy(order, starts[k], group, groupSize, length);
+				groupSize += length;
+			}
+			if(groupSize>0) fork(forked,java.util.Arrays.copyOf(group, groupSize));
+			if(largest<0) return new int[0];
+			return java.util.Arrays.copyOfRange(order, starts[largest], starts[largest+1]);
+		}
+
+		/**
+		 * Forks the decomposition of {@code partition} under a new color.
+		 */
+		private void fork(java.util.ArrayList<Decompose> forked , int[] partition){
+			int partitionColor = colors.getAndIncrement();
+			for(int v : partition) color.set(v, partitionColor);
+			fork(forked,partition,partitionColor);
+		}
+
+		private void fork(java.util.ArrayList<Decompose> forked , int[] partition , int partitionColor){
+			if(partition.length==0) return;
+			Decompose task = new Decompose(partition,partitionColor);
+			task.fork();
+			forked.add(task);
+		}
+	}
+
+	/**
+	 * @return the vertices of {@code vertices} whose color is {@code c}
+	 */
+	private int[] select(int[] vertices , int c){
+		int size = 0;
+		int[] selected = new int[vertices.length];
+		for(int v : vertices){
+			if(color.get(v)==c) selected[size++] = v;
+		}
+		return java.util.Arrays.copyOf(selected, size);
+	}
+
+	/**
+	 * Removes the trivial components of the partition of color {@code c}.
+	 * The in and out degrees inside the partition are counted in parallel,
+	 * then vertices whose count drops to zero are peeled off one by one.
+	 * @return the members left in the partition
+	 */
+	private int[] trim(final int[] members , final int c){
+		if(members.length<MIN_PARALLEL || parallelism==1){
+			count(members,0,members.length,c);
+		}
+		else{
+			int chunk = Math.max(MIN_CHUNK, members.length/(8*parallelism));
+			RecursiveAction[] tasks = new RecursiveAction[(members.length+chunk-1)/chunk];
+			for(int t=0;t<tasks.length;++t){
+				final int from = t*chunk , to = Math.min(members.length,(t+1)*chunk);
+				tasks[t] = new RecursiveAction(){
+					private static final long serialVersionUID = 1L;
+
+					protected void compute(){
+						count(members,from,to,c);
+					}
+				};
+			}
+			ForkJoinTask.invokeAll(tasks);
+		}
+		// a vertex is queued at most three times: initially and when each count reaches zero
+		int[] queue = new int[16];
+		int head = 0 , tail = 0;
+		for(int v : members){
+			if(inCount[v]==0 || outCount[v]==0){
+				if(tail==queue.length) queue = java.util.Arrays.copyOf(queue, 2*tail);
+				queue[tail++] = v;
+			}
+		}
+		while(head<tail){
+			int v = queue[head++];
+			if(color.get(v)!=c) continue;
+			connectedComponent[v] = components.getAndIncrement();
+			color.set(v, DONE);
+			int degree = G.degree(v);
+			for(int i=0;i<degree;++i){
+				int w = G.neighbor(v, i);
+				if(color.get(w)==c && --inCount[w]==0){
+					if(tail==queue.length) queue = java.util.Arrays.copyOf(queue, 2*tail);
+					queue[tail++] = w;
+				}
+			}
+			int inDegree = G.inDegree(v);
+			for(int i=0;i<inDegree;++i){
+				int w = G.inNeighbor(v, i);
+				if(color.get(w)==c && --outCount[w]==0){
+					if(tail==queue.length) queue = java.util.Arrays.copyOf(queue, 2*tail);
+					queue[tail++] = w;
+				}
+			}
+		}
+		return select(members,c);
+	}
+
+	/**
+	 * Counts the edges between members[from,to) and other vertices of color {@code c}.
+	 */
+	private void count(int[] members , int from , int to , int c){
+		for(int k=from;k<to;++k){
+			int v = members[k] , in = 0 , out = 0;
+			int degree = G.degree(v);
+			for(int i=0;i<degree;++i){
+				int w = G.neighbor(v, i);
+				if(w!=v && color.get(w)==c) out++;
+			}
+			int inDegree = G.inDegree(v);
+			for(int i=0;i<inDegree;++i){
+				int w = G.inNeighbor(v, i);
+				if(w!=v && color.get(w)==c) in++;
+			}
+			inCount[v] = in;
+			outCount[v] = out;
+		}
+	}
+
+	/**
+	 * Level-synchronous search from {@code pivot}, whose color must already be set.
+	 * A vertex of color {@code a} is recolored {@code newA}, one of color {@code b}
+	 * is recolored {@code newB}; no other vertex is entered.
+	 * @param backward true to follow the in-edges
+	 * @return the vertices reached, the pivot included
+	 */
+	private int[] reach(int pivot , boolean backward , int a , int newA , int b , int newB){
+		int[] reached = new int[16];
+		reached[0] = pivot;
+		int levelStart = 0 , size = 1;
+		while(levelStart<size){
+			int levelEnd = size;
+			Expand[] tasks;
+			if(levelEnd-levelStart<MIN_PARALLEL || parallelism==1){
+				tasks = new Expand[]{new Expand(reached,levelStart,levelEnd,backward,a,newA,b,newB)};
+				tasks[0].compute();
+			}
+			else{
+				int chunk = Math.max(MIN_CHUNK, (levelEnd-levelStart)/(8*parallelism));
+				tasks = new Expand[(levelEnd-levelStart+chunk-1)/chunk];
+				for(int t=0;t<tasks.length;++t){
+					int from = levelStart+t*chunk;
+					tasks[t] = new Expand(reached,from,Math.min(levelEnd,from+chunk),backward,a,newA,b,newB);
+				}
+				ForkJoinTask.invokeAll(tasks);
+			}
+			for(Expand task : tasks){
+				if(size+task.size>reached.length){
+					reached = java.util.Arrays.copyOf(reached, Math.max(2*reached.length,size+task.size));
+				}
+				System.arraycopy(task.found, 0, reached, size, task.size);
+				size += task.size;
+			}
+			levelStart = levelEnd;
+		}
+		return java.util.Arrays.copyOf(reached, size);
+	}
+
+	/**
+	 * Expands frontier[from,to) into a private buffer of newly claimed vertices.
+	 */
+	private final class Expand extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] frontier;
+		private final int from , to;
+		private final boolean backward;
+		private final int a , newA , b , newB;
+		int[] found;
+		int size;
+
+		Expand(int[] frontier , int from , int to , boolean backward , int a , int newA , int b , int newB){
+			this.frontier = frontier;
+			this.from = from;
+			this.to = to;
+			this.backward = backward;
+			this.a = a;
+			this.newA = newA;
+			this.b = b;
+			this.newB = newB;
+			this.found = new int[Math.max(16,to-from)];
+		}
+
+		protected void compute(){
+			for(int k=from;k<to;++k){
+				int u = frontier[k];
+				int degree = (backward?G.inDegree(u):G.degree(u));
+				for(int i=0;i<degree;++i){
+					int v = (backward?G.inNeighbor(u, i):G.neighbor(u, i));
+					int c = color.get(v);
+					if((c==a && color.compareAndSet(v, a, newA)) || (c==b && color.compareAndSet(v, b, newB))){
+						if(size==found.length) found = java.util.Arrays.copyOf(found, 2*size);
+						found[size++] = v;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Iterative Tarjan search restricted to the vertices of color {@code c}.
+	 * A visited vertex keeps color {@code c} exactly while it is on the
+	 * component stack.
+	 */
+	private void tarjan(int[] members , int c){
+		int m = members.length;
+		if(m==0) return;
+		int[] callStack = new int[m] , sccStack = new int[m] , cursor = new int[m];
+		for(int v : members) index[v] = UNVISITED;
+		int counter = 0 , sccTop = 0;
+		for(int root : members){
+			if(index[root]!=UNVISITED) continue;
+			int top = 0;
+			index[root] = low[root] = counter++;
+			sccStack[sccTop++] = root;
+			cursor[top] = 0;
+			callStack[top++] = root;
+			while(top>0){
+				int u = callStack[top-1];
+				if(cursor[top-1]<G.degree(u)){
+					int w = G.neighbor(u, cursor[top-1]++);
+					if(color.get(w)!=c) continue;
+					if(index[w]==UNVISITED){
+						index[w] = low[w] = counter++;
+						sccStack[sccTop++] = w;
+						cursor[top] = 0;
+						callStack[top++] = w;
+					}
+					else{
+						low[u] = Math.min(low[u], index[w]);
+					}
+					continue;
+				}
+				top--;
+				if(low[u]==index[u]){
+					int id = components.getAndIncrement() , w;
+					do{
+						w = sccStack[--sccTop];
+						connectedComponent[w] = id;
+						color.set(w, DONE);
+					}
+					while(w!=u);
+				}
+				if(top>0){
+					int parent = callStack[top-1];
+					low[parent] = Math.min(low[parent], low[u]);
+				}
+			}
+		}
+	}
+
+	private void validateVertex(int i){
+		if(i < 0) throw new IllegalArgumentException("Vertex: " + i + " is negative.");
+		if(i > G.V()-1) throw new IllegalArgumentException("Vertex: " + i + " is larger than |V|=" + G.V() +".");
+	}
+
+	public int getConnectedComponents(int u){
+		validateVertex(u);
+		return connectedComponent[u];
+	}
+
+	/**
+	 * @return number of strongly connected components
+	 */
+	public int count(){
+		return components.get();
+	}
+
+	/**
+	 * @return array holding the component id of every vertex
+	 */
+	public int[] components(){
+		return connectedComponent.clone();
+	}
+
+	public boolean stronglyConnected(int u, int v){
+		validateVertex(u);
+		validateVertex(v);
+		return connectedComponent[u]==connectedComponent[v];
+	}
+
+	/**
+	 * Unit tests the {@code ParallelConnectedComponents} data type on a graph
+	 * with one giant component and many singletons, and on graphs made of
+	 * small or medium cycles.
+	 *
+	 * @param args the command-line arguments
+	 */
+	public static void main(String[] args){
+		int V = (args.length>0?Integer.parseInt(args[0]):500000);
+		int giant = V/4 , E = 4*V;
+		java.util.Random random = new java.util.Random();
+		int[] from = new int[E] , to = new int[E];
+		for(int e=0;e<E;++e){
+			if(e<giant){
+				// a cycle through the giant component
+				from[e] = e;
+				to[e] = (e+1)%giant;
+				continue;
+			}
+			// other edges go forward in vertex order outside the giant component
+			int u = random.nextInt(V) , v = random.nextInt(V);
+			if(u>=giant || v>=giant){
+				from[e] = Math.min(u,v);
+				to[e] = Math.max(u,v);
+			}
+			else{
+				from[e] = u;
+				to[e] = v;
+			}
+		}
+		System.out.println("Giant component and singletons:");
+		check(new CSRDigraph(V, from, to));
+
+		System.out.println("Small cycles:");
+		check(cycles(V, 2, 3, V, random));
+		System.out.println("Medium cycles:");
+		check(cycles(V, 100, 2000, V/100, random));
+		System.out.println("Disjoint cycles of length 2:");
+		check(cycles(V, 2, 2, 0, random));
+	}
+
+	/**
+	 * @return graph made of cycles over consecutive vertices, with lengths drawn
+	 *         from [minLength,maxLength], linked by {@code forwardEdges} random
+	 *         edges going forward in vertex order
+	 */
+	private static CSRDigraph cycles(int V , int minLength , int maxLength , int forwardEdges , java.util.Random random){
+		int edges = 0;
+		int[] from = new int[V+forwardEdges] , to = new int[V+forwardEdges];
+		for(int start=0;start<V;){
+			int length = Math.min(V-start, minLength+random.nextInt(maxLength-minLength+1));
+			for(int k=0;k<length;++k){
+				from[edges] = start+k;
+				to[edges++] = start+(k+1)%length;
+			}
+			start += length;
+		}
+		for(int e=0;e<forwardEdges;++e){
+			int u = random.nextInt(V) , v = random.nextInt(V);
+			from[edges] = Math.min(u,v);
+			to[edges++] = Math.max(u,v);
+		}
+		return new CSRDigraph(V, java.util.Arrays.copyOf(from, edges), java.util.Arrays.copyOf(to, edges));
+	}
+
+	private static void check(CSRDigraph G){
+		long start = System.nanoTime();
+		ParallelConnectedComponents p = new ParallelConnectedComponents(G);
+		System.out.println("Parallel: " + (System.nanoTime()-start)/1000000 + "ms, " + p.count() + " components");
+		start = System.nanoTime();
+		ConnectedComponents s = new ConnectedComponents(G);
+		System.out.println("Tarjan: " + (System.nanoTime()-start)/1000000 + "ms, " + s.count() + " components");
+		// same partition iff component ids correspond one to one
+		int[] map = new int[p.count()];
+		java.util.Arrays.fill(map, -1);
+		boolean same = p.count()==s.count();
+		for(int v=0;v<G.V() && same;++v){
+			int c = p.getConnectedComponents(v);
+			if(map[c]==-1) map[c] = s.getConnectedComponents(v);
+			else if(map[c]!=s.getConnectedComponents(v)) same = false;
+		}
+		System.out.println("Components check: " + (same?"Ok!":"False!"));
+	}
+}
@@ -1,9 +1,12 @@
 import java.security.AllPermission;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 
 public class Permutation {
+	private static final int MAX_RANK_SIZE = 20;
 	private int[] permutation;
 
 	public Permutation(int[] permutation){
@@ -12,12 +15,24 @@ public class Permutation {
 		System.arraycopy(permutation, 0, this.permutation, 0, permutation.length);
 	}
 
+	private Permutation(){ }
+
+	/**
+	 * Wraps {@code permutation} without copying or validating it.
+	 */
+	private static Permutation wrap(int[] permutation){
+		Permutation p = new Permutation();
+		p.permutation = permutation;
+		return p;
+	}
+
 	public static boolean isPermutation(int [] permutation){
 		boolean[] permutationCheck = new boolean[permutation.length];
 		for(int i=0 ; i<permutation.length;++i){
-			if(permutationCheck[permutation[i]]){
+			if(permutation[i]<0 || permutation[i]>=permutation.length || permutationCheck[permutation[i]]){
 				return false;
 			}
+			permutationCheck[permutation[i]] = true;
 		}
 		return true;
 	}
@@ -25,33 +40,30 @@ public class Permutation {
 	public Permutation inverse(){
 		int[] inverse = new int[this.permutation.length];
 		for(int i=0 ; i<permutation.length;++i){
-			this.permutation[i] = permutation[i];
 			inverse[permutation[i]] = i;
 		}
-		return new Permutation(inverse);
+		return wrap(inverse);
 	}
 	
 	private LinkedList<LinkedList<Integer>> cyclicStructure(){
 		LinkedList<LinkedList<Integer>> cycleStructure = new LinkedList<LinkedList<Integer>>();
-		boolean[] marked = new boolean[permutation.length];
-		int cyclePosition = 0 , current=0 , count=0;
-		while(count<permutation.length){
-			if(!marked[cyclePosition]){
-				current=cyclePosition;
-				LinkedList<Integer> cycle = new LinkedList<Integer>();
-				do{
-					cycle.add(current);
-					current = permutation[current];
-					marked[current] = true;
-					count++;
-				}
-				while(current != cycle.getFirst());
-				cycleStructure.add(cycle);
+		CycleDecomposition cycles = this.cycles();
+		for(int c=0;c<cycles.cycleCount();++c){
+			LinkedList<Integer> cycle = new LinkedList<Integer>();
+			for(int i=0;i<cycles.cycleLength(c);++i){
+				cycle.add(cycles.get(c, i));
 			}
-			cyclePosition++;
+			cycleStructure.add(cycle);
 		}
 		return cycleStructure;
 	}
+
+	/**
+	 * @return flat cycle decomposition of this permutation
+	 */
+	public CycleDecomposition cycles(){
+		return new CycleDecomposition(this);
+	}
 	
 	public int[] getPermutation(){
 		return this.permutation;
@@ -69,8 +81,8 @@ public class Permutation {
 	}
 	
 	
-	private int countInversionNaive(){
-		int invCount = 0;
+	private long countInversionNaive(){
+		long invCount = 0;
 		for (int i = 0; i < permutation.length - 1; ++i){
 			for (int j = i+1; j < permutation.length; j++){
 				if (permutation[i] > permutation[j]){
@@ -81,10 +93,46 @@ public class Permutation {
 		  return invCount;
 	}
 	
+	/**
+	 * @return number of pairs i<j with p(i)>p(j)
+	 * @throws ArithmeticException if the count does not fit in an int, use
+	 *         {@link #countInversionLong()} for permutations of more than 65536 elements
+	 */
 	public int countInversion(){
-		int[] arr = new int [permutation.length];
-		System.arraycopy(permutation, 0, arr, 0, arr.length);
-		return countInversion(arr,0,arr.length-1);
+		return Math.toIntExact(countInversionLong());
+	}
+
+	/**
+	 * Counts the inversions with a bottom-up merge sort of a copy of the permutation.
+	 * The merges alternate between the copy and one scratch buffer. O(n log n).
+	 * @return number of pairs i<j with p(i)>p(j)
+	 */
+	public long countInversionLong(){
+		int n = permutation.length;
+		int[] arr = permutation.clone() , scratch = new int[n];
+		long invCount = 0;
+		for(int width=1;width<n;width<<=1){
+			for(int start=0;start<n;start+=2*width){
+				int mid = Math.min(start+width,n) , end = Math.min(start+2*width,n);
+				int i = start , j = mid , k = start;
+				while(i<mid && j<end){
+					if(arr[i]<arr[j]){
+						scratch[k++] = arr[i++];
+					}
+					else{
+						// arr[j] is smaller than all of arr[i..mid)
+						invCount += mid-i;
+						scratch[k++] = arr[j++];
+					}
+				}
+				while(i<mid) scratch[k++] = arr[i++];
+				while(j<end) scratch[k++] = arr[j++];
+			}
+			int[] temp = arr;
+			arr = scratch;
+			scratch = temp;
+		}
+		return invCount;
 	}
 	
 	public int[] permutationFromCycleStrcture(LinkedList<LinkedList<Integer>> cycleStructure){
@@ -97,12 +145,20 @@ public class Permutation {
 		for(LinkedList<Integer> cycle: cycleStructure){
 			int prev = cycle.getLast();
 			for(int i : cycle){
-				permutation[i] = prev;
+				permutation[prev] = i;
 				prev=i;
 			}
 		}
 		return permutation;
 	}
+
+	/**
+	 * @param cycles flat cycle decomposition
+	 * @return the permutation mapping every element to the next one in its cycle
+	 */
+	public static int[] permutationFromCycleStrcture(CycleDecomposition cycles){
+		return cycles.toPermutation(new int[cycles.size()]);
+	}
 	
 	public int[] permutationFromCycle(LinkedList<Integer> cycle , int length){
 		int[] permutation = new int[length];
@@ -112,7 +168,7 @@ public class Permutation {
 		
 		int prev = cycle.getLast();
 		for(int i : cycle){
-			permutation[i] = prev;
+			permutation[prev] = i;
 			prev=i;
 		}
 		return permutation;
@@ -120,45 +176,13 @@ public class Permutation {
 	
 	
 	
-	private int countInversion(int[] arr, int startPos, int endPos){
-		if((endPos-startPos)==0){
-			return 0;
-		}
-		int mid = (endPos+startPos)/2;
-		int inv1 = countInversion(arr, startPos, mid);
-		int inv2 = countInversion(arr, mid+1, endPos);
-		int[] mergeArr = new int[endPos-startPos+1];
-		int i=0,j=0,k=0 , delta=0;
-		while(i<= (mid-startPos) && j<=(endPos-mid-1)){
-			if(arr[mid+1+j]>arr[startPos+i]){
-				mergeArr[k] = arr[startPos+i];
-				i++;
-				delta+=j;
-			}
-			else if(arr[mid+1+j]<arr[startPos+i]){
-				mergeArr[k] = arr[mid+1+j];
-				j++;
-			}
-			k++;
-		}
-		delta+= (mid-startPos+1-i)*j;
-		System.arraycopy(arr, (i>(mid-startPos)?mid+1+j:startPos+i) , mergeArr, k, (endPos-startPos+1-k));
-		System.arraycopy(mergeArr, 0 , arr, startPos, mergeArr.length);
-
-		return (inv1+inv2+delta);
-	}
-	
 	public int size(){
 		return permutation.length;
 	}
 	
 	public Permutation composeRight(Permutation p){
 		if(p.size()!=this.size()) throw new IllegalArgumentException("Size of permutations must match");
-		int[] composition = new int[p.size()];
-		for(int i=0;i<p.size();++i){
-			composition[i] = p.getIndex(this.getIndex(i));
-		}
-		return new Permutation(composition);
+		return wrap(compose(this.permutation,p.permutation,new int[p.size()]));
 	}
 	
 	public int getIndex(int index){
@@ -166,109 +190,346 @@ public class Permutation {
 	}
 	
 	
+	/**
+	 * Parity from the cycle decomposition, a permutation with c cycles is a product
+	 * of n-c transpositions. The cycles are counted by
+	 * {@link CycleDecomposition#cycleLengths}. O(n).
+	 * @return 0 for an even permutation and 1 for an odd one
+	 */
 	public int sign(){
-		int sum = 0;
-		for(LinkedList<Integer> cycle: this.cycleStructure()){
-			sum+=cycle.size()+1;
-		}
-		return sum%2;
+		int n = permutation.length;
+		int cycles = CycleDecomposition.cycleLengths(permutation, new long[(n+63)>>>6], null, null);
+		return (n-cycles)&1;
 	}
 	
 	public Permutation composeLeft(Permutation p){
 		if(p.size()!=this.size()) throw new IllegalArgumentException("Size of permutations must match");
-		int[] composition = new int[p.size()];
-		for(int i=0;i<p.size();++i){
-			composition[i] = this.getIndex(p.getIndex(i));
+		return wrap(compose(p.permutation,this.permutation,new int[p.size()]));
+	}
+	
+	/**
+	 * Unchecked composition kernel, neither array is validated.
+	 * @param first applied first
+	 * @param second applied second
+	 * @param out receives i -> second[first[i]], must not alias {@code second}
+	 * @return out
+	 */
+	public static int[] compose(int[] first , int[] second , int[] out){
+		for(int i=0;i<first.length;++i){
+			out[i] = second[first[i]];
+		}
+		return out;
+	}
+
+	/**
+	 * Batch form of {@link #composeRight(Permutation)}: every block of {@code size()}
+	 * entries of {@code targets} is a permutation q, and the matching block of
+	 * {@code out} receives q composed after this permutation. The targets are not validated.
+	 * @param targets permutations stored back to back
+	 * @param out buffer of the same length, must not alias targets
+	 */
+	public void composeRight(int[] targets , int[] out){
+		int n = permutation.length;
+		checkBatch(targets.length, out.length);
+		for(int offset=0;offset<targets.length;offset+=n){
+			for(int i=0;i<n;++i){
+				out[offset+i] = targets[offset+permutation[i]];
+			}
+		}
+	}
+
+	/**
+	 * Batch form of {@link #composeLeft(Permutation)}: every block q of {@code targets}
+	 * is replaced in {@code out} by this permutation composed after q. The targets are
+	 * not validated, and out may be targets itself.
+	 */
+	public void composeLeft(int[] targets , int[] out){
+		checkBatch(targets.length, out.length);
+		for(int k=0;k<targets.length;++k){
+			out[k] = permutation[targets[k]];
+		}
+	}
+
+	/**
+	 * Batch form of {@link #composeRight(Permutation)} over separate arrays.
+	 */
+	public void composeRight(int[][] targets , int[][] out){
+		if(targets.length!=out.length) throw new IllegalArgumentException("Number of targets and outputs must match");
+		for(int t=0;t<targets.length;++t){
+			if(targets[t].length!=size() || out[t].length!=size()) throw new IllegalArgumentException("Size of permutations must match");
+			compose(permutation,targets[t],out[t]);
+		}
+	}
+
+	/**
+	 * Batch form of {@link #composeLeft(Permutation)} over separate arrays.
+	 */
+	public void composeLeft(int[][] targets , int[][] out){
+		if(targets.length!=out.length) throw new IllegalArgumentException("Number of targets and outputs must match");
+		for(int t=0;t<targets.length;++t){
+			if(targets[t].length!=size() || out[t].length!=size()) throw new IllegalArgumentException("Size of permutations must match");
+			compose(targets[t],permutation,out[t]);
+		}
+	}
+
+	private void checkBatch(int targets , int out){
+		if(targets!=out) throw new IllegalArgumentException("Size of targets and output must match");
+		if(permutation.length==0 ? targets!=0 : targets%permutation.length!=0) throw new IllegalArgumentException("Size of targets must be a multiple of " + permutation.length);
+	}
+
+	/**
+	 * Power by the cycle decomposition: an element at position j of a cycle of
+	 * length L is mapped to position (j+k) mod L. O(n) for any k.
+	 * @param k exponent, may be negative
+	 */
+	public Permutation pow(long k){
+		CycleDecomposition cycles = this.cycles();
+		int[] elements = cycles.elements() , offsets = cycles.offsets();
+		int[] power = new int[permutation.length];
+		for(int c=0;c<cycles.cycleCount();++c){
+			int start = offsets[c] , length = offsets[c+1]-start;
+			int shift = (int)(((k%length)+length)%length);
+			for(int j=0;j<length;++j){
+				int target = j+shift;
+				power[elements[start+j]] = elements[start+(target>=length?target-length:target)];
+			}
 		}
-		return new Permutation(composition);
+		return wrap(power);
 	}
 	
+	/**
+	 * @return p, then this permutation, then the inverse of p
+	 */
 	public Permutation conjugate(Permutation p){
-		Permutation conjugate = p.composeRight(this.composeRight(p.inverse()));
-		return conjugate;
+		return wrap(conjugate(p,new int[permutation.length]));
+	}
+
+	/**
+	 * Writes i -> p^-1[this[p[i]]] into {@code out} without any other buffer.
+	 * The inverse of p is written into out first, then permuted in place by
+	 * gathering along the cycles of i -> this[p[i]]; entries already moved are
+	 * marked by storing their complement. O(n).
+	 * @param p the conjugating permutation
+	 * @param out array of length {@code size()}, must not alias either permutation
+	 * @return out
+	 */
+	public int[] conjugate(Permutation p , int[] out){
+		int n = permutation.length;
+		if(p.size()!=n || out.length!=n) throw new IllegalArgumentException("Size of permutations must match");
+		int[] q = p.permutation;
+		for(int i=0;i<n;++i) out[q[i]] = i;
+		for(int start=0;start<n;++start){
+			if(out[start]<0) continue;
+			int first = out[start] , i = start;
+			for(int next=permutation[q[i]];next!=start;next=permutation[q[i]]){
+				out[i] = ~out[next];
+				i = next;
+			}
+			out[i] = ~first;
+		}
+		for(int i=0;i<n;++i) out[i] = ~out[i];
+		return out;
 	}
 	
+	/**
+	 * The lcm of the cycle lengths given by {@link CycleDecomposition#cycleLengths}. O(n).
+	 */
 	public int order(){
-		int ord = 1;
-		for(LinkedList<Integer> cycle:this.cycleStructure()){
-			ord = EucleadAlgorithm.lcm(ord, cycle.size());
+		int n = permutation.length , ord = 1;
+		int[] lengths = new int[n];
+		int cycles = CycleDecomposition.cycleLengths(permutation, new long[(n+63)>>>6], null, lengths);
+		for(int c=0;c<cycles;++c){
+			if(ord%lengths[c]!=0) ord = EucleadAlgorithm.lcm(ord, lengths[c]);
 		}
 		return ord;
 	}
+
+	/**
+	 * Order computed in a reusable decomposition, which allocates nothing once it has grown.
+	 * @param scratch decomposition overwritten with the one of this permutation
+	 */
+	public int order(CycleDecomposition scratch){
+		return scratch.decompose(permutation).order();
+	}
 	
 	public Iterable<LinkedList<Integer>> cycleStructure(){
 		return this.cyclicStructure();
 	}
 	
+	/**
+	 * Permutations are conjugate iff they have the same cycle type. The cycle
+	 * lengths of this permutation are counted up and those of {@code p} down in
+	 * one array. O(n).
+	 */
 	public boolean isConjugate(Permutation p){
 		if(p.size()!=this.size()) throw new IllegalArgumentException("Size of permutations must match");
-		int[] cycleCount = new int[p.size()];
-		for(LinkedList<Integer> cycle : this.cycleStructure()){cycleCount[cycle.size()]++;}
-		for(LinkedList<Integer> cycle : p.cycleStructure()){cycleCount[cycle.size()]--;}
-		for(int i=0;i<cycleCount.length;++i){
-			if(cycleCount[i]!=0)return false;
+		int n = permutation.length;
+		int[] cycleType = new int[n+1] , lengths = new int[n];
+		long[] marked = new long[(n+63)>>>6];
+		int cycles = CycleDecomposition.cycleLengths(this.permutation, marked, null, lengths);
+		for(int c=0;c<cycles;++c) cycleType[lengths[c]]++;
+		java.util.Arrays.fill(marked, 0L);
+		cycles = CycleDecomposition.cycleLengths(p.permutation, marked, null, lengths);
+		for(int c=0;c<cycles;++c) cycleType[lengths[c]]--;
+		for(int length=1;length<=n;++length){
+			if(cycleType[length]!=0) return false;
 		}
 		return true;
 	}
+
+	/**
+	 * Conjugacy test in reusable decompositions, which allocate nothing once they have grown.
+	 * @param scratch decomposition overwritten with the one of this permutation
+	 * @param otherScratch decomposition overwritten with the one of {@code p}
+	 */
+	public boolean isConjugate(Permutation p , CycleDecomposition scratch , CycleDecomposition otherScratch){
+		if(p.size()!=this.size()) throw new IllegalArgumentException("Size of permutations must match");
+		return scratch.decompose(permutation).isConjugate(otherScratch.decompose(p.permutation));
+	}
+
 	
-	
-	private static LinkedList<Permutation> SJTAlgorithm(int size){
-		LinkedList<Permutation> allPermutations = new LinkedList<Permutation>();
-		int[] currentPermutation = new int[size];
-		int[] direction = new int[size];
-		int largestMobile , chosenElement , currentDirection;
-		for(int i=0 ; i<size ; ++i){
-			currentPermutation[i]=i;
-			direction[i] = -1;
-		}
-		direction[0] = 0;
-		while(true){
-			allPermutations.add(new Permutation(currentPermutation));
-			largestMobile=-1;
-			for(int i=0;i<size;++i){
-				if(direction[i]!=0){
-					if(largestMobile<0){
-						largestMobile=i;
+	/**
+	 * All permutations of the given size in Steinhaus-Johnson-Trotter order.
+	 * The permutations are generated lazily by an {@link SJTIterator}; use the
+	 * iterator directly to avoid allocating a Permutation per step.
+	 */
+	public static Iterable<Permutation> allPermutations(final int size){
+		return new Iterable<Permutation>(){
+			public Iterator<Permutation> iterator(){
+				final SJTIterator sjt = new SJTIterator(size);
+				return new Iterator<Permutation>(){
+					public boolean hasNext(){
+						return sjt.hasNext();
 					}
-					else{
-						largestMobile = (currentPermutation[largestMobile]<currentPermutation[i]?i:largestMobile);
+
+					public Permutation next(){
+						return wrap(sjt.next().clone());
 					}
-				}
+
+					public void remove(){
+						throw new UnsupportedOperationException();
+					}
+				};
 			}
-			if(largestMobile<0)break;
-			//swap largest mobile
-			currentDirection=direction[largestMobile];
-			chosenElement=largestMobile+currentDirection;
-			swap(currentPermutation,largestMobile,chosenElement);
-			swap(direction,largestMobile,chosenElement);
+		};
+	}
+
+	/**
+	 * @return spliterator over all permutations of the given size, which splits by prefix.
+	 *         The elements share one {@code int[]} per split.
+	 */
+	public static Spliterator<int[]> spliterator(int size){
+		return new PermutationSpliterator(size);
+	}
+	
+	private static long factorial(int n){
+		long factorial = 1;
+		for(int i=2;i<=n;++i) factorial *= i;
+		return factorial;
+	}
+
+	private static void checkRankSize(int size){
+		if(size<0 || size>MAX_RANK_SIZE) throw new IllegalArgumentException("rank is defined for permutations of size at most " + MAX_RANK_SIZE);
+	}
+
+	/**
+	 * Lexicographic rank, computed from the Lehmer code: the i-th digit counts the
+	 * unused elements smaller than the i-th entry, and is read from a Fenwick tree
+	 * of the unused elements. O(n log n).
+	 * @return rank in [0,n!)
+	 */
+	public long rank(){
+		int n = permutation.length;
+		checkRankSize(n);
+		FenwickTree unused = FenwickTree.full(n);
+		long rank = 0;
+		for(int i=0;i<n;++i){
+			int v = permutation[i];
+			rank = rank*(n-i)+unused.prefixSum(v);
+			unused.add(v, -1);
+		}
+		return rank;
+	}
+
+	/**
+	 * Inverse of {@link #rank()}: the Lehmer code digits of the rank select the
+	 * unused elements in order. O(n log n).
+	 * @param rank rank in [0,size!)
+	 * @param size size of the permutation, at most 20
+	 * @return the permutation of the given lexicographic rank
+	 */
+	public static Permutation unrank(long rank , int size){
+		return wrap(unrankArray(rank,size));
+	}
+
+	private static int[] unrankArray(long rank , int size){
+		checkRankSize(size);
+		if(rank<0 || rank>=factorial(size)) throw new IllegalArgumentException("rank " + rank + " out of range for size " + size);
+		int[] digits = new int[size];
+		for(int i=size-1;i>=0;--i){
+			digits[i] = (int)(rank%(size-i));
+			rank /= (size-i);
+		}
+		FenwickTree unused = FenwickTree.full(size);
+		int[] permutation = new int[size];
+		for(int i=0;i<size;++i){
+			permutation[i] = unused.find(digits[i]);
+			unused.add(permutation[i], -1);
+		}
+		return permutation;
+	}
 
+	/**
+	 * Permutations with ranks in [fromRank,toRank), in lexicographic order.
+	 * The range starts with {@link #unrank} and then steps to the next permutation in
+	 * place, so disjoint ranges can be enumerated independently.
+	 * The iterator returns one shared {@code int[]} which is mutated in place.
+	 * @param size size of the permutations, at most 20
+	 */
+	public static Iterator<int[]> range(int size , final long fromRank , final long toRank){
+		checkRankSize(size);
+		if(fromRank<0 || toRank<fromRank || toRank>factorial(size)) throw new IllegalArgumentException("invalid rank range [" + fromRank + "," + toRank + ")");
+		final int[] current = (fromRank<toRank?unrankArray(fromRank,size):new int[size]);
+		return new Iterator<int[]>(){
+			private long rank = fromRank;
 
-			if(chosenElement==0 || chosenElement==size-1){
-				direction[chosenElement] = 0;
+			public boolean hasNext(){
+				return rank<toRank;
 			}
-			else if(currentPermutation[chosenElement]<currentPermutation[chosenElement+currentDirection]){
-				direction[chosenElement]=0;
+
+			public int[] next(){
+				if(rank>=toRank) throw new NoSuchElementException();
+				if(rank++>fromRank) nextPermutation(current);
+				return current;
 			}
-			for(int i=0;i<size;++i){
-				if(currentPermutation[chosenElement]<currentPermutation[i]){
-					if(i<chosenElement)direction[i] = 1;
-					if(i>chosenElement)direction[i] = -1;
-				}
+
+			public void remove(){
+				throw new UnsupportedOperationException();
 			}
-		}
-		return allPermutations;
+		};
 	}
-	
+
+	/**
+	 * Replaces arr by its lexicographic successor.
+	 * @return false if arr is the last permutation
+	 */
+	private static boolean nextPermutation(int[] arr){
+		int i = arr.length-2;
+		while(i>=0 && arr[i]>arr[i+1]) i--;
+		if(i<0) return false;
+		int j = arr.length-1;
+		while(arr[j]<arr[i]) j--;
+		swap(arr,i,j);
+		for(int l=i+1,r=arr.length-1;l<r;++l,--r) swap(arr,l,r);
+		return true;
+	}
+
 	private static void swap(int arr[],int i , int j){
 		int temp = arr[i];
 		arr[i] = arr[j];
 		arr[j] = temp;
 	}
 	
-	public static Iterable<Permutation> allPermutations(int size){
-		return SJTAlgorithm(size);
-	}
-	
 	public static void main(String[] args){
 		for(Permutation p:allPermutations(4)){
 			System.out.println(p.toString());
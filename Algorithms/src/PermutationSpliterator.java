@@ -0,0 +1,106 @@
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over all permutations of 0..n-1 for parallel enumeration.
+ * A spliterator covers the permutations with a fixed prefix buffer[0..depth)
+ * whose next entry is one of {@code choices[lo..hi)}. Splitting halves the
+ * choices, and once a single choice is left it is fixed and the prefix grows.
+ * Each choice is enumerated by an {@link SJTIterator} over the tail of the
+ * buffer, so the elements are a shared {@code int[]} which is mutated in place.
+ */
+public class PermutationSpliterator implements Spliterator<int[]> {
+	private final int[] buffer;
+	private int[] choices;
+	private int depth , lo , hi;
+	private SJTIterator current;
+	private long remaining;
+
+	/**
+	 * @param size number of elements, at least 1
+	 */
+	public PermutationSpliterator(int size){
+		if(size<1) throw new IllegalArgumentException("size must be positive");
+		this.buffer = new int[size];
+		this.choices = new int[size];
+		for(int i=0;i<size;++i) choices[i] = i;
+		this.depth = 0;
+		this.lo = 0;
+		this.hi = size;
+		this.remaining = count();
+	}
+
+	private PermutationSpliterator(int[] buffer , int[] choices , int depth , int lo , int hi){
+		this.buffer = buffer;
+		this.choices = choices;
+		this.depth = depth;
+		this.lo = lo;
+		this.hi = hi;
+		this.remaining = count();
+	}
+
+	/**
+	 * @return (hi-lo)*(n-depth-1)!, or Long.MAX_VALUE on overflow
+	 */
+	private long count(){
+		long count = hi-lo;
+		for(int k=2;k<buffer.length-depth;++k){
+			if(count>Long.MAX_VALUE/k) return Long.MAX_VALUE;
+			count *= k;
+		}
+		return count;
+	}
+
+	/**
+	 * Writes choice t into the buffer: the prefix is kept, choices[t] goes to
+	 * position depth and the other choices fill the tail.
+	 */
+	private void load(int t){
+		buffer[depth] = choices[t];
+		int position = depth+1;
+		for(int i=0;i<choices.length;++i){
+			if(i!=t) buffer[position++] = choices[i];
+		}
+	}
+
+	public boolean tryAdvance(Consumer<? super int[]> action){
+		if(current==null || !current.hasNext()){
+			if(lo>=hi) return false;
+			load(lo++);
+			current = new SJTIterator(buffer,depth+1);
+		}
+		action.accept(current.next());
+		if(remaining!=Long.MAX_VALUE) remaining--;
+		return true;
+	}
+
+	public Spliterator<int[]> trySplit(){
+		if(current!=null) return null;
+		if(hi-lo==1 && choices.length>2){
+			// fix the single choice and split the next position instead
+			int[] next = new int[choices.length-1];
+			for(int i=0,t=0;i<choices.length;++i){
+				if(i!=lo) next[t++] = choices[i];
+			}
+			buffer[depth] = choices[lo];
+			choices = next;
+			depth++;
+			lo = 0;
+			hi = next.length;
+		}
+		if(hi-lo<2) return null;
+		int mid = (lo+hi)>>>1;
+		PermutationSpliterator prefix = new PermutationSpliterator(buffer.clone(),choices,depth,lo,mid);
+		this.lo = mid;
+		this.remaining = count();
+		return prefix;
+	}
+
+	public long estimateSize(){
+		return remaining;
+	}
+
+	public int characteristics(){
+		return NONNULL | (remaining!=Long.MAX_VALUE?SIZED|SUBSIZED:0);
+	}
+}
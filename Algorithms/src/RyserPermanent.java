@@ -0,0 +1,175 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel computation of the permanent of a square matrix with the Ryser formula
+ * perm(A) = sum over nonempty column sets S of (-1)^(n-|S|) prod_i sum_{j in S} a_ij.
+ * <p>
+ * The column sets are visited in Gray code order, see {@link GrayCode#flips(long, long)}.
+ * The 2^n-1 steps are split into independent ranges; each range seeds its row sums
+ * directly from the Gray code preceding its first step, and the partial sums are added up.
+ * Matrices over {@link ModularNumber} use primitive {@code long} accumulators.
+ */
+public class RyserPermanent {
+	private static final long MIN_CHUNK = 1L<<12;
+	private static final int MAX_SIZE = GrayCode.MAX_BITS;
+
+	// this class cannot be instantiated
+	private RyserPermanent() { }
+
+	/**
+	 * @param m square matrix
+	 * @return permanent of {@code m}
+	 */
+	public static FieldElement permanent(Matrix m){
+		return permanent(m,ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param m square matrix
+	 * @param pool pool running the ranges
+	 * @return permanent of {@code m}
+	 */
+	public static FieldElement permanent(Matrix m , ForkJoinPool pool){
+		if(!m.isSquare()) throw new IllegalArgumentException("cannot compute permanent for non-square matrix");
+		int n = m.rowNum();
+		if(n>MAX_SIZE) throw new IllegalArgumentException("matrix is too large for Ryser formula");
+		long steps = (1L<<n)-1 , chunk = chunkSize(steps,pool.getParallelism());
+		if(m.isModular()){
+			int p = m.unitElement().characteristic();
+			int[] a = m.toModularMatrix().data();
+			long permanent = pool.invoke(new ModularTask(a,n,p,1,steps+1,chunk));
+			return new ModularNumber((int)permanent,p);
+		}
+		return pool.invoke(new FieldTask(m,1,steps+1,chunk));
+	}
+
+	private static long chunkSize(long steps , int parallelism){
+		// A few ranges per worker so that uneven ranges balance out
+		long chunk = steps/(8L*Math.max(1,parallelism));
+		return Math.max(chunk,MIN_CHUNK);
+	}
+
+	/**
+	 * Sum of the Ryser terms of steps [from,to) over GF(p).
+	 */
+	private static final class ModularTask extends RecursiveTask<Long>{
+		private static final long serialVersionUID = 1L;
+		private final int[] a;
+		private final int n , p;
+		private final long from , to , chunk;
+
+		ModularTask(int[] a , int n , int p , long from , long to , long chunk){
+			this.a = a;
+			this.n = n;
+			this.p = p;
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+		}
+
+		protected Long compute(){
+			if(to-from>chunk){
+				long mid = from+(to-from)/2;
+				ModularTask left = new ModularTask(a,n,p,from,mid,chunk);
+				left.fork();
+				long right = new ModularTask(a,n,p,mid,to,chunk).compute();
+				return (left.join()+right)%p;
+			}
+			long[] rowSum = new long[n];
+			GrayCode.FlipIterator flips = GrayCode.flips(from,to);
+			long columns = flips.code();
+			for(int c=0;c<n;++c){
+				if((columns>>>c&1)==0) continue;
+				for(int i=0;i<n;++i) rowSum[i] += a[i*n+c];
+			}
+			for(int i=0;i<n;++i) rowSum[i] %= p;
+			long sum = 0;
+			for(long k=from;flips.hasNext();++k){
+				int c = flips.nextInt();
+				if((flips.code()>>>c&1)!=0){
+					for(int i=0;i<n;++i){
+						long s = rowSum[i]+a[i*n+c];
+						rowSum[i] = (s>=p?s-p:s);
+					}
+				}
+				else{
+					for(int i=0;i<n;++i){
+						long s = rowSum[i]-a[i*n+c];
+						rowSum[i] = (s<0?s+p:s);
+					}
+				}
+				long product = 1;
+				for(int i=0;i<n && product!=0;++i){
+					product = product*rowSum[i]%p;
+				}
+				// the column set has the parity of k
+				sum += (((n-k)&1)==0?product:p-product);
+				if(sum>=p) sum -= p;
+			}
+			return sum%p;
+		}
+	}
+
+	/**
+	 * Sum of the Ryser terms of steps [from,to) over an arbitrary field.
+	 */
+	private static final class FieldTask extends RecursiveTask<FieldElement>{
+		private static final long serialVersionUID = 1L;
+		private final Matrix m;
+		private final long from , to , chunk;
+
+		FieldTask(Matrix m , long from , long to , long chunk){
+			this.m = m;
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+		}
+
+		protected FieldElement compute(){
+			if(to-from>chunk){
+				long mid = from+(to-from)/2;
+				FieldTask left = new FieldTask(m,from,mid,chunk);
+				left.fork();
+				FieldElement right = new FieldTask(m,mid,to,chunk).compute();
+				return left.join().add(right);
+			}
+			int n = m.rowNum();
+			FieldElement[] rowSum = new FieldElement[n];
+			for(int i=0;i<n;++i) rowSum[i] = m.zeroElement();
+			GrayCode.FlipIterator flips = GrayCode.flips(from,to);
+			long columns = flips.code();
+			for(int c=0;c<n;++c){
+				if((columns>>>c&1)==0) continue;
+				for(int i=0;i<n;++i) rowSum[i] = rowSum[i].add(m.get(i, c));
+			}
+			FieldElement sum = m.zeroElement();
+			for(long k=from;flips.hasNext();++k){
+				int c = flips.nextInt();
+				boolean added = (flips.code()>>>c&1)!=0;
+				for(int i=0;i<n;++i){
+					rowSum[i] = (added?rowSum[i].add(m.get(i, c)):rowSum[i].subtract(m.get(i, c)));
+				}
+				FieldElement product = m.unitElement();
+				for(int i=0;i<n;++i){
+					product = product.mult(rowSum[i]);
+					if(!product.nonZeroElement()) break;
+				}
+				sum = (((n-k)&1)==0?sum.add(product):sum.subtract(product));
+			}
+			return sum;
+		}
+	}
+
+	public static void main(String[] args){
+		int size = (args.length>0?Integer.parseInt(args[0]):20) , mod = 32003;
+		Matrix h = new Matrix(size,new ModularNumber(1,mod));
+		h.set(0, 0, new ModularNumber(0,mod));
+		//Should compute the permanent = size! - (size-1)! % mod
+		long start = System.nanoTime();
+		System.out.println(permanent(h) + " (" + (System.nanoTime()-start)/1000000 + "ms)");
+		long factorial = 1;
+		for(int i=1;i<size;++i) factorial = factorial*i%mod;
+		System.out.println("Expected: " + (factorial*(size-1))%mod);
+	}
+}
@@ -0,0 +1,97 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy Steinhaus-Johnson-Trotter enumeration of permutations (plain changes).
+ * All permutations are produced in a single {@code int[]} which is mutated in
+ * place, every step swaps two adjacent positions. The implementation follows
+ * Knuth's Algorithm P, so each step costs O(1) amortized time and no memory.
+ * <p>
+ * {@link #next()} returns the shared buffer; callers that keep a permutation
+ * must copy it. {@link #swapPosition()} reports the transposition of the last step.
+ */
+public class SJTIterator implements Iterator<int[]> {
+	private final int[] a;
+	private final int offset , n;
+	private final int[] c;
+	private final int[] o;
+	private int swapPosition;
+	private boolean started;
+
+	/**
+	 * Enumerates the permutations of 0..size-1, starting from the identity.
+	 */
+	public SJTIterator(int size){
+		this(identity(size),0);
+	}
+
+	/**
+	 * Enumerates the permutations of {@code buffer[offset..]} in place,
+	 * starting from its current order. Entries before offset are not touched.
+	 */
+	SJTIterator(int[] buffer , int offset){
+		this.a = buffer;
+		this.offset = offset;
+		this.n = buffer.length-offset;
+		this.c = new int[n+1];
+		this.o = new int[n+1];
+		for(int j=1;j<=n;++j) o[j] = 1;
+		this.swapPosition = -1;
+	}
+
+	private static int[] identity(int size){
+		if(size<0) throw new IllegalArgumentException("size must be non-negative");
+		int[] identity = new int[size];
+		for(int i=0;i<size;++i) identity[i] = i;
+		return identity;
+	}
+
+	public boolean hasNext(){
+		if(!started) return true;
+		// same scan as the step, without flipping directions
+		for(int j=n;j>0;--j){
+			int q = c[j]+o[j];
+			if(q>=0 && q!=j) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the next permutation, in the shared buffer
+	 */
+	public int[] next(){
+		if(!started){
+			started = true;
+			return a;
+		}
+		int j = n , s = 0;
+		while(j>0){
+			int q = c[j]+o[j];
+			if(q>=0 && q!=j){
+				int i0 = offset+j-c[j]+s-1 , i1 = offset+j-q+s-1;
+				int temp = a[i0];
+				a[i0] = a[i1];
+				a[i1] = temp;
+				c[j] = q;
+				swapPosition = Math.min(i0,i1);
+				return a;
+			}
+			if(q==j) s++;
+			o[j] = -o[j];
+			j--;
+		}
+		throw new NoSuchElementException();
+	}
+
+	/**
+	 * @return i such that the last step swapped positions i and i+1 of the buffer,
+	 *         or -1 if the last permutation returned was the first one
+	 */
+	public int swapPosition(){
+		return swapPosition;
+	}
+
+	public void remove(){
+		throw new UnsupportedOperationException();
+	}
+}
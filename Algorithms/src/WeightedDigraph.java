@@ -1,12 +1,12 @@
-import java.util.LinkedList;
-import java.util.Stack;
+import java.util.ArrayList;
+import java.util.function.IntConsumer;
 
-public class WeightedDigraph {
+public class WeightedDigraph implements GraphView {
 
     private final int V;
     protected int E;
-    private LinkedList<Edge>[] backward_adj;
-    private LinkedList<Edge>[] adj;
+    private ArrayList<Edge>[] backward_adj;
+    private ArrayList<Edge>[] adj;
     
     /**
      * Initializes a new graph with {@code V} vertices.
@@ -16,11 +16,11 @@ public class WeightedDigraph {
     	if (V <= 0) throw new IllegalArgumentException("Number of vertices must be positive");
     	this.V = V;
     	this.E = 0;
-    	this.backward_adj = (LinkedList<Edge>[]) new LinkedList[V];
-    	this.adj = (LinkedList<Edge>[]) new LinkedList[V];
+    	this.backward_adj = (ArrayList<Edge>[]) new ArrayList[V];
+    	this.adj = (ArrayList<Edge>[]) new ArrayList[V];
     	for(int i=0 ; i<V ; ++i){
-    		this.backward_adj[i] = new LinkedList<Edge>();
-    		this.adj[i] = new LinkedList<Edge>();
+    		this.backward_adj[i] = new ArrayList<Edge>();
+    		this.adj[i] = new ArrayList<Edge>();
     	}
     }
     	
@@ -63,6 +63,51 @@ public class WeightedDigraph {
        validateVertex(v);
        return adj[v];
    }
+
+    /**
+     * @param v the vertex
+     * @return number of edges leaving {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int degree(int v) {
+        return outDegree(v);
+    }
+
+    /**
+     * @param v the vertex
+     * @param i index in the out edges of {@code v}
+     * @return head of the i-th edge leaving {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V} and {@code 0 <= i < degree(v)}
+     */
+    public int neighbor(int v, int i) {
+        validateVertex(v);
+        if(i < 0 || i >= adj[v].size()) throw new IllegalArgumentException("Index " + i + " out of range");
+        return adj[v].get(i).other(v);
+    }
+
+    /**
+     * @param v the vertex
+     * @param i index in the in edges of {@code v}
+     * @return tail of the i-th edge entering {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V} and {@code 0 <= i < inDegree(v)}
+     */
+    public int inNeighbor(int v, int i) {
+        validateVertex(v);
+        if(i < 0 || i >= backward_adj[v].size()) throw new IllegalArgumentException("Index " + i + " out of range");
+        return backward_adj[v].get(i).other(v);
+    }
+
+    /**
+     * Applies {@code action} to the head of every edge leaving {@code v}, without boxing.
+     * @param v the vertex
+     * @param action the action
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public void forEachNeighbor(int v, IntConsumer action) {
+        validateVertex(v);
+        ArrayList<Edge> edges = adj[v];
+        for(int i=0;i<edges.size();++i) action.accept(edges.get(i).other(v));
+    }
    
     /**
      * Verify that given vertex is valid.
@@ -120,22 +165,8 @@ public class WeightedDigraph {
         this(G.V());
         this.E = G.E();
         for (int v = 0; v < G.V(); v++) {
-            // reverse so that adjacency list is in same order as original
-            Stack<Edge> reverse = new Stack<Edge>();
-            for (Edge e : G.backward_adj[v]) {
-                reverse.push(e);
-            }
-            for (Edge e : reverse) {
-                backward_adj[v].add(e);
-            }
-            
-            reverse.clear();
-            for (Edge e : G.adj[v]) {
-                reverse.push(e);
-            }
-            for (Edge e : reverse) {
-                adj[v].add(e);
-            }
+            backward_adj[v].addAll(G.backward_adj[v]);
+            adj[v].addAll(G.adj[v]);
         }
     }
 